@@ -1,6 +1,7 @@
 package com.photowatermark;
 
 import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.service.BatchPlanner;
 import com.photowatermark.service.ImageProcessor;
 import com.photowatermark.util.CommandLineParser;
 import org.apache.logging.log4j.LogManager;
@@ -24,11 +25,17 @@ public class App {
                 return; // 显示帮助信息后退出
             }
 
+            if (config.isPlanOnly()) {
+                // 只生成处理计划，不处理图片
+                new BatchPlanner().plan(config);
+                return;
+            }
+
             logger.info("开始处理图片...");
             logger.info("图片路径: {}", config.getImagePath());
             logger.info("水印字体大小: {}", config.getFontSize());
-            logger.info("水印颜色: {}", config.getColor());
-            logger.info("水印位置: {}", config.getPosition());
+            logger.info("水印颜色: {}", config.isAutoColor() ? "auto" : config.getColor());
+            logger.info("水印位置: {}", config.isAutoPosition() ? "auto" : config.getPosition());
 
             // 处理图片
             ImageProcessor processor = new ImageProcessor();
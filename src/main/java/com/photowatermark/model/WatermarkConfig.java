@@ -1,21 +1,42 @@
 package com.photowatermark.model;
 
 import java.awt.Color;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 水印配置类，存储水印的相关参数
  */
 public class WatermarkConfig {
+    // 全部有效的水印位置，按自动选择时的优先级排序（亮度统计相同时选择靠前的位置）
+    public static final List<String> POSITIONS = Collections.unmodifiableList(Arrays.asList(
+            "bottom-right", "bottom-left", "top-right", "top-left",
+            "bottom-center", "top-center", "center-right", "center-left", "center"));
+
     private String imagePath;
     private int fontSize;
     private Color color;
     private String position;
+    private boolean autoPosition;
+    private boolean autoColor;
+    private int threads;
+    private int ioThreads;
+    private boolean virtualIoThreads;
+    private int bufferPoolSize;
+    private boolean planOnly;
+    private String exifIndexPath;
+    private boolean exifIndexEnabled;
 
     public WatermarkConfig() {
         // 默认配置
         this.fontSize = 30;
         this.color = Color.WHITE;
         this.position = "bottom-right";
+        this.threads = 1;
+        this.ioThreads = 0;
+        this.bufferPoolSize = 0;
+        this.exifIndexEnabled = true;
     }
 
     public String getImagePath() {
@@ -49,4 +70,84 @@ public class WatermarkConfig {
     public void setPosition(String position) {
         this.position = position;
     }
+
+    public boolean isAutoPosition() {
+        return autoPosition;
+    }
+
+    public void setAutoPosition(boolean autoPosition) {
+        this.autoPosition = autoPosition;
+    }
+
+    public boolean isAutoColor() {
+        return autoColor;
+    }
+
+    public void setAutoColor(boolean autoColor) {
+        this.autoColor = autoColor;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    public boolean isVirtualIoThreads() {
+        return virtualIoThreads;
+    }
+
+    public void setVirtualIoThreads(boolean virtualIoThreads) {
+        this.virtualIoThreads = virtualIoThreads;
+    }
+
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+
+    public void setBufferPoolSize(int bufferPoolSize) {
+        this.bufferPoolSize = bufferPoolSize;
+    }
+
+    public boolean isPlanOnly() {
+        return planOnly;
+    }
+
+    public void setPlanOnly(boolean planOnly) {
+        this.planOnly = planOnly;
+    }
+
+    public String getExifIndexPath() {
+        return exifIndexPath;
+    }
+
+    public void setExifIndexPath(String exifIndexPath) {
+        this.exifIndexPath = exifIndexPath;
+    }
+
+    public boolean isExifIndexEnabled() {
+        return exifIndexEnabled;
+    }
+
+    public void setExifIndexEnabled(boolean exifIndexEnabled) {
+        this.exifIndexEnabled = exifIndexEnabled;
+    }
+
+    /**
+     * 是否启用并发流水线模式（I/O与CPU分离的线程池）
+     * @return 设置了多个处理线程、I/O线程或使用虚拟线程时返回true
+     */
+    public boolean isPipelined() {
+        return threads > 1 || ioThreads > 0 || virtualIoThreads;
+    }
 }
\ No newline at end of file
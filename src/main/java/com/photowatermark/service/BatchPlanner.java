@@ -0,0 +1,317 @@
+package com.photowatermark.service;
+
+import com.photowatermark.exception.ExifReadException;
+import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.util.CostCalibration;
+import com.photowatermark.util.FileUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 批处理计划服务类，只读取图片文件头和EXIF日期，估算内存、像素总量和运行时间，不解码像素数据
+ */
+public class BatchPlanner {
+    private static final Logger logger = LogManager.getLogger(BatchPlanner.class);
+
+    // 处理一张图片时每个像素占用的堆内存：解码后的原图约3-4字节，加水印的副本4字节
+    private static final int BYTES_PER_PIXEL = 8;
+    // 推荐堆大小时额外预留的基础内存和余量
+    private static final long BASE_HEAP_BYTES = 256L * 1024 * 1024;
+    private static final double HEAP_HEADROOM = 1.5;
+    // 按像素数分组的边界（百万像素）
+    private static final double[] SIZE_BUCKETS = {2, 8, 24};
+
+    // 每个读取线程最多排队的文件数，避免大批量时一次性提交全部任务
+    private static final int PENDING_PER_THREAD = 4;
+
+    private final ExifReader exifReader = new ExifReader();
+    private final CostCalibration costCalibration;
+
+    public BatchPlanner() {
+        this(new CostCalibration());
+    }
+
+    BatchPlanner(CostCalibration costCalibration) {
+        this.costCalibration = costCalibration;
+    }
+
+    /**
+     * 生成处理计划并输出到控制台
+     * @param config 水印配置
+     */
+    public void plan(WatermarkConfig config) {
+        plan(config, System.out);
+    }
+
+    /**
+     * 生成处理计划并输出到指定的流
+     * @param config 水印配置
+     * @param out 输出流
+     */
+    public void plan(WatermarkConfig config, PrintStream out) {
+        List<File> imageFiles = FileUtil.collectImageFiles(new File(config.getImagePath()));
+        logger.info("找到 {} 张图片，开始读取文件头", imageFiles.size());
+
+        ImageIO.setUseCache(false);
+        ExifIndex exifIndex = ExifIndex.open(config);
+        Summary summary = new Summary();
+
+        // 文件头读取以I/O为主，按I/O线程数并发执行
+        int threads = ImageProcessor.ioConcurrency(config, config.getThreads());
+        ExecutorService pool = ImageProcessor.newIoExecutor(config, threads, "pw-plan");
+        try {
+            // 按完成顺序取回结果，同时提交的任务数保持在线程数的固定倍数以内
+            CompletionService<ImageHeader> headers = new ExecutorCompletionService<>(pool);
+            int maxPending = threads * PENDING_PER_THREAD;
+            Iterator<File> files = imageFiles.iterator();
+            int pending = 0;
+            while (files.hasNext() || pending > 0) {
+                while (files.hasNext() && pending < maxPending) {
+                    File file = files.next();
+                    headers.submit(() -> readHeader(file, exifIndex));
+                    pending++;
+                }
+                summary.add(headers.take().get());
+                pending--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("读取文件头被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("读取文件头失败", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        // 计划模式读取的日期同样写入索引，正式处理时可直接使用
+        exifIndex.save();
+
+        printReport(summary, config, out);
+    }
+
+    /**
+     * 读取单张图片的尺寸和拍摄日期，不解码像素数据
+     * @param file 图片文件
+     * @param exifIndex EXIF日期索引
+     * @return 文件头信息，尺寸无法读取时宽高为0
+     */
+    private ImageHeader readHeader(File file, ExifIndex exifIndex) {
+        ImageHeader header = new ImageHeader(FileUtil.getImageFormat(file), file.length());
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = input == null
+                    ? null : ImageIO.getImageReaders(input);
+            if (readers != null && readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    header.width = reader.getWidth(0);
+                    header.height = reader.getHeight(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 逐个文件的失败只计入报告中的无法读取数量，避免大批量扫描时日志淹没报告
+            logger.debug("读取图片文件头失败: {}", file.getAbsolutePath(), e);
+        }
+
+        ExifIndex.Entry cached = exifIndex.lookup(file);
+        if (cached != null) {
+            header.hasShootDate = cached.getDateText() != null;
+        } else {
+            try {
+                Date shootDate = exifReader.findShootDate(file);
+                exifIndex.put(file, exifReader.formatDateForWatermark(shootDate));
+                header.hasShootDate = shootDate != null;
+            } catch (ExifReadException e) {
+                // 读取失败可能是暂时的I/O错误，不写入索引，下次重新解析
+                logger.debug("读取EXIF信息失败: {}", file.getAbsolutePath(), e);
+            } catch (RuntimeException e) {
+                // Commons Imaging对格式异常的文件可能抛出未检查异常，不应中断整个计划
+                logger.debug("读取EXIF信息失败: {}", file.getAbsolutePath(), e);
+            }
+        }
+
+        return header;
+    }
+
+    /**
+     * 输出计划报告
+     * @param summary 汇总信息
+     * @param config 水印配置
+     * @param out 输出流
+     */
+    private void printReport(Summary summary, WatermarkConfig config, PrintStream out) {
+        double millisPerMegapixel = costCalibration.getMillisPerMegapixel();
+        // 解码、绘制和编码都是CPU密集型，处理线程数超过CPU核数不会更快，只会增加同时解码占用的堆内存
+        int cores = Runtime.getRuntime().availableProcessors();
+        int recommendedThreads = (int) Math.max(1, Math.min(cores, summary.total.count));
+        // 与校准一致，超过CPU核数的处理线程不会缩短耗时
+        int configuredThreads = Math.min(config.getThreads(), cores);
+
+        out.println("==== 处理计划 ====");
+        out.printf("图片数量: %d（无法读取尺寸 %d，无EXIF日期 %d）%n",
+                summary.total.count, summary.unreadable, summary.total.count - summary.withShootDate);
+        out.printf("像素总量: %.1f 百万像素，文件总大小: %s%n",
+                summary.total.megapixels, formatBytes(summary.total.fileBytes));
+        out.printf("单张最大解码内存: %s，全部解码合计: %s%n",
+                formatBytes(summary.maxPixels * BYTES_PER_PIXEL),
+                formatBytes((long) (summary.total.megapixels * 1_000_000) * BYTES_PER_PIXEL));
+        out.println();
+
+        out.println("按格式:");
+        printGroups(summary.byFormat, out);
+        out.println("按尺寸:");
+        printGroups(summary.bySize, out);
+        out.println();
+
+        out.printf("耗时校准: 单线程每百万像素 %.1f 毫秒（%s）%n", millisPerMegapixel,
+                costCalibration.isCalibrated() ? "来自历史运行" : "默认值，完成一次处理后自动校准");
+        out.printf("按当前设置（%d 个处理线程）预计耗时: %s%n", config.getThreads(),
+                formatDuration(summary.total.megapixels * millisPerMegapixel / configuredThreads));
+        out.printf("按推荐设置（%d 个处理线程）预计耗时: %s%n", recommendedThreads,
+                formatDuration(summary.total.megapixels * millisPerMegapixel / recommendedThreads));
+
+        // 每个处理线程同时持有一张解码后的图片
+        long heapBytes = BASE_HEAP_BYTES
+                + (long) (summary.maxPixels * BYTES_PER_PIXEL * recommendedThreads * HEAP_HEADROOM);
+        // 缓冲区池使用直接内存，默认上限与-Xmx相同：同时在内存中的每张图片占用输入、输出两个缓冲区，
+        // 编码后的大小按与原文件接近估算
+        int buffers = 2;
+        if (recommendedThreads > 1 || config.getIoThreads() > 0 || config.isVirtualIoThreads()) {
+            buffers = ImageProcessor.maxInFlight(recommendedThreads,
+                    ImageProcessor.ioConcurrency(config, recommendedThreads)) * 2;
+        }
+        buffers = Math.max(buffers, config.getBufferPoolSize());
+        long directBytes = (long) (buffers * summary.maxFileBytes * HEAP_HEADROOM);
+        long totalBytes = heapBytes + directBytes;
+        long heapMegabytes = (totalBytes + (256L * 1024 * 1024 - 1)) / (256L * 1024 * 1024) * 256;
+        out.printf("推荐参数: --threads %d，JVM参数 -Xmx%dm%n", recommendedThreads, heapMegabytes);
+        out.println("  处理线程数取CPU核数与图片数量中的较小值，预计耗时按校准耗时随线程数线性缩短估算；");
+        out.printf("  堆内存 %s 按 %d 个线程同时处理最大的图片计算，直接内存 %s 按 %d 个缓冲区容纳最大的文件计算，%n",
+                formatBytes(heapBytes), recommendedThreads, formatBytes(directBytes), buffers);
+        out.println("  直接内存默认上限与 -Xmx 相同，推荐值为两者之和。文件位于NFS等高延迟存储时，可另外增大 --io-threads");
+    }
+
+    private void printGroups(Map<String, Group> groups, PrintStream out) {
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            if (group.count == 0) {
+                continue;
+            }
+            out.printf("  %-12s %8d 张  %10.1f 百万像素  %10s%n",
+                    entry.getKey(), group.count, group.megapixels, formatBytes(group.fileBytes));
+        }
+    }
+
+    private static String sizeBucket(double megapixels) {
+        double lower = 0;
+        for (double upper : SIZE_BUCKETS) {
+            if (megapixels < upper) {
+                return String.format("%.0f-%.0fMP", lower, upper);
+            }
+            lower = upper;
+        }
+        return String.format(">=%.0fMP", lower);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static String formatDuration(double millis) {
+        long seconds = (long) Math.ceil(millis / 1000);
+        return String.format("%d小时%02d分%02d秒", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    /**
+     * 单张图片的文件头信息
+     */
+    private static class ImageHeader {
+        private final String format;
+        private final long fileBytes;
+        private int width;
+        private int height;
+        private boolean hasShootDate;
+
+        ImageHeader(String format, long fileBytes) {
+            this.format = format;
+            this.fileBytes = fileBytes;
+        }
+    }
+
+    /**
+     * 一组图片的统计
+     */
+    private static class Group {
+        private long count;
+        private double megapixels;
+        private long fileBytes;
+
+        void add(double imageMegapixels, long imageFileBytes) {
+            count++;
+            megapixels += imageMegapixels;
+            fileBytes += imageFileBytes;
+        }
+    }
+
+    /**
+     * 全部图片的汇总统计
+     */
+    private static class Summary {
+        private final Group total = new Group();
+        private final Map<String, Group> byFormat = new TreeMap<>();
+        private final Map<String, Group> bySize = new LinkedHashMap<>();
+        private long maxPixels;
+        private long maxFileBytes;
+        private long unreadable;
+        private long withShootDate;
+
+        Summary() {
+            // 预先按从小到大的顺序放入尺寸分组，保证输出顺序
+            bySize.put(sizeBucket(0), new Group());
+            for (double bound : SIZE_BUCKETS) {
+                bySize.put(sizeBucket(bound), new Group());
+            }
+        }
+
+        void add(ImageHeader header) {
+            long pixels = (long) header.width * header.height;
+            double megapixels = pixels / 1_000_000.0;
+
+            total.add(megapixels, header.fileBytes);
+            byFormat.computeIfAbsent(header.format, key -> new Group()).add(megapixels, header.fileBytes);
+            if (pixels == 0) {
+                unreadable++;
+            } else {
+                bySize.get(sizeBucket(megapixels)).add(megapixels, header.fileBytes);
+            }
+            if (header.hasShootDate) {
+                withShootDate++;
+            }
+            maxPixels = Math.max(maxPixels, pixels);
+            maxFileBytes = Math.max(maxFileBytes, header.fileBytes);
+        }
+    }
+}
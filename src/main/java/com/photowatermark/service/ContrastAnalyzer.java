@@ -0,0 +1,128 @@
+package com.photowatermark.service;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+/**
+ * 对比度分析服务类，根据候选水印区域的亮度统计选择最清晰的位置和颜色
+ * 每个区域只按固定网格采样，开销与图片尺寸无关
+ */
+public class ContrastAnalyzer {
+    // 每个区域在水平和垂直方向上的最大采样点数
+    private static final int SAMPLES_PER_AXIS = 24;
+
+    /**
+     * 从候选区域中选择水印最清晰的位置和颜色
+     * @param image 原始图片
+     * @param candidates 候选位置及其水印文本所占区域，按优先级排序
+     * @param fixedColor 用户指定的水印颜色，为null时自动在黑白之间选择
+     * @return 选择结果，所有候选区域都在图片之外时返回null
+     */
+    public Placement choose(BufferedImage image, Map<String, Rectangle> candidates, Color fixedColor) {
+        Placement best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        for (Map.Entry<String, Rectangle> candidate : candidates.entrySet()) {
+            RegionStats stats = measure(image, candidate.getValue());
+            if (stats == null) {
+                // 完全在图片之外的区域没有可比较的背景
+                continue;
+            }
+
+            Color color = fixedColor;
+            if (color == null) {
+                // 亮背景用黑字，暗背景用白字
+                color = stats.mean >= 128 ? Color.BLACK : Color.WHITE;
+            }
+
+            // 文字与背景的亮度差越大、背景越平坦，水印越清晰
+            double score = Math.abs(stats.mean - luminance(color.getRGB())) - stats.stdDev;
+            if (score > bestScore) {
+                bestScore = score;
+                best = new Placement(candidate.getKey(), color);
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * 按网格采样计算区域的亮度均值和标准差
+     * @param image 图片
+     * @param region 区域，超出图片的部分会被裁掉
+     * @return 亮度统计，区域完全在图片之外时返回null
+     */
+    private RegionStats measure(BufferedImage image, Rectangle region) {
+        Rectangle clipped = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (clipped.isEmpty()) {
+            return null;
+        }
+
+        int stepX = Math.max(1, clipped.width / SAMPLES_PER_AXIS);
+        int stepY = Math.max(1, clipped.height / SAMPLES_PER_AXIS);
+        double sum = 0;
+        double sumSquares = 0;
+        int count = 0;
+
+        for (int y = clipped.y + stepY / 2; y < clipped.y + clipped.height; y += stepY) {
+            for (int x = clipped.x + stepX / 2; x < clipped.x + clipped.width; x += stepX) {
+                double lum = luminance(image.getRGB(x, y));
+                sum += lum;
+                sumSquares += lum * lum;
+                count++;
+            }
+        }
+
+        double mean = sum / count;
+        double variance = Math.max(0, sumSquares / count - mean * mean);
+        return new RegionStats(mean, Math.sqrt(variance));
+    }
+
+    /**
+     * 计算像素的亮度（ITU-R BT.601）
+     * @param rgb ARGB像素值
+     * @return 亮度，范围0-255
+     */
+    private static double luminance(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        return 0.299 * r + 0.587 * g + 0.114 * b;
+    }
+
+    /**
+     * 区域亮度统计
+     */
+    private static class RegionStats {
+        private final double mean;
+        private final double stdDev;
+
+        RegionStats(double mean, double stdDev) {
+            this.mean = mean;
+            this.stdDev = stdDev;
+        }
+    }
+
+    /**
+     * 水印位置和颜色的选择结果
+     */
+    public static class Placement {
+        private final String position;
+        private final Color color;
+
+        public Placement(String position, Color color) {
+            this.position = position;
+            this.color = color;
+        }
+
+        public String getPosition() {
+            return position;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.photowatermark.service;
+
+import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.util.FileUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EXIF日期索引服务类，按文件标识（路径、大小、修改时间）缓存已提取的拍摄日期，
+ * 多次处理同一批图片时跳过EXIF解析。文件大小或修改时间变化后对应记录自动失效
+ *
+ * 索引文件由定长记录和路径字符串区组成，记录按路径哈希排序，查询时直接在内存映射中二分查找，
+ * 不把整个索引加载到堆中；只有本次运行新增或变化的记录保存在内存里，保存时与原文件合并写出
+ */
+public class ExifIndex {
+    private static final Logger logger = LogManager.getLogger(ExifIndex.class);
+
+    public static final File DEFAULT_FILE =
+            new File(System.getProperty("user.home"), ".photowatermark" + File.separator + "exif-index.bin");
+
+    private static final long MAGIC = 0x5057455849463031L; // "PWEXIF01"
+    private static final int VERSION = 2;
+
+    // 文件头: 魔数(8) 版本(4) 记录数(4) 字符串区偏移(8) 保留(8)
+    private static final int HEADER_SIZE = 32;
+    // 记录: 路径哈希(8) 文件大小(8) 修改时间(8) 路径偏移(8) 路径长度(4) 日期文本(10) 填充(2)
+    private static final int RECORD_SIZE = 48;
+    private static final int HASH_OFFSET = 0;
+    private static final int SIZE_OFFSET = 8;
+    private static final int MTIME_OFFSET = 16;
+    private static final int PATH_OFFSET = 24;
+    private static final int PATH_LENGTH_OFFSET = 32;
+    private static final int DATE_OFFSET = 36;
+    // 日期以水印使用的yyyy-MM-dd文本保存，与时区无关；全0表示图片没有拍摄日期
+    private static final int DATE_LENGTH = 10;
+
+    private static final Comparator<Record> RECORD_ORDER =
+            Comparator.comparingLong((Record record) -> record.hash).thenComparing(record -> record.path);
+
+    private final File file;
+    private volatile MappedByteBuffer mapped;
+    private int mappedCount;
+    private long stringsOffset;
+
+    // 本次运行新增或变化的记录
+    private final Map<String, Entry> updates = new ConcurrentHashMap<>();
+    // 本次运行中需要从索引中删除的路径
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+    // 本次运行中查询或更新过的路径，用于清理已删除文件的记录
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    private ExifIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 打开索引文件，文件不存在或内容无效时创建空索引
+     * @param file 索引文件，为null时返回不做任何缓存的空索引
+     * @return 索引对象
+     */
+    public static ExifIndex open(File file) {
+        ExifIndex index = new ExifIndex(file);
+        if (file != null && file.isFile()) {
+            index.map();
+            if (index.mapped != null) {
+                logger.info("已加载EXIF索引，共 {} 条记录: {}", index.mappedCount, file.getAbsolutePath());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 根据配置打开索引
+     * @param config 水印配置
+     * @return 索引对象，配置中禁用索引时返回不做任何缓存的空索引
+     */
+    public static ExifIndex open(WatermarkConfig config) {
+        if (!config.isExifIndexEnabled()) {
+            return open((File) null);
+        }
+        return open(config.getExifIndexPath() != null ? new File(config.getExifIndexPath()) : DEFAULT_FILE);
+    }
+
+    /**
+     * 查询文件的缓存记录
+     * @param imageFile 图片文件
+     * @return 文件未变化时返回缓存记录，否则返回null
+     */
+    public Entry lookup(File imageFile) {
+        if (file == null) {
+            return null;
+        }
+
+        String path = key(imageFile);
+        seen.add(path);
+        Entry entry = updates.get(path);
+        if (entry == null && !removed.contains(path)) {
+            entry = find(path);
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        BasicFileAttributes attributes = readAttributes(imageFile);
+        if (attributes == null || attributes.size() != entry.size
+                || attributes.lastModifiedTime().toMillis() != entry.lastModified) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 记录文件的拍摄日期，只应记录成功解析的结果，读取失败时不要调用
+     * @param imageFile 图片文件
+     * @param dateText yyyy-MM-dd格式的拍摄日期，图片中没有日期时为null
+     */
+    public void put(File imageFile, String dateText) {
+        if (file == null) {
+            return;
+        }
+        if (dateText != null && dateText.length() != DATE_LENGTH) {
+            throw new IllegalArgumentException("日期格式应为yyyy-MM-dd: " + dateText);
+        }
+
+        BasicFileAttributes attributes = readAttributes(imageFile);
+        if (attributes == null) {
+            return;
+        }
+
+        String path = key(imageFile);
+        seen.add(path);
+        removed.remove(path);
+        updates.put(path, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), dateText));
+    }
+
+    /**
+     * 删除指定目录下本次运行未出现的文件记录（文件已被删除或不再是图片）
+     * @param directory 本次处理的目录
+     */
+    public void pruneDirectory(File directory) {
+        if (file == null || mapped == null) {
+            return;
+        }
+
+        Path parent = Paths.get(key(directory));
+        for (int i = 0; i < mappedCount; i++) {
+            String path = readPath(mapped, i);
+            // 旧版本按未规范化的路径写入的记录也按所在目录比较，不在本次运行中出现即被清理
+            if (path != null && parent.equals(Paths.get(path).normalize().getParent())
+                    && !seen.contains(path) && !updates.containsKey(path)) {
+                removed.add(path);
+            }
+        }
+    }
+
+    /**
+     * 有更新时将索引写回磁盘，先写临时文件再替换，避免中断时损坏已有索引。
+     * 调用时不能有其他线程同时查询索引
+     */
+    public void save() {
+        if (file == null || (updates.isEmpty() && removed.isEmpty())) {
+            return;
+        }
+
+        List<Record> pending = new ArrayList<>(updates.size());
+        for (Map.Entry<String, Entry> item : updates.entrySet()) {
+            pending.add(new Record(item.getKey(), item.getValue()));
+        }
+        pending.sort(RECORD_ORDER);
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        FileUtil.createDirectory(directory);
+        // 每次保存使用独立的临时文件，多个任务同时处理同一批图片时不会互相覆盖写入中的内容
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile(directory.toPath(), file.getName() + ".", ".tmp");
+        } catch (IOException e) {
+            logger.warn("保存EXIF索引失败: {}", file.getAbsolutePath(), e);
+            return;
+        }
+
+        int count;
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024))) {
+            // 合并三遍：统计记录数和字符串区大小、写记录、写路径字符串，避免把整个索引读入堆中
+            long[] totals = new long[2];
+            merge(pending, (record, pathBytes) -> {
+                totals[0]++;
+                totals[1] += pathBytes.length;
+            });
+            count = (int) totals[0];
+
+            output.writeLong(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            output.writeLong(HEADER_SIZE + (long) count * RECORD_SIZE);
+            output.writeLong(0);
+
+            long[] pathOffset = new long[1];
+            merge(pending, (record, pathBytes) -> {
+                output.writeLong(record.hash);
+                output.writeLong(record.entry.size);
+                output.writeLong(record.entry.lastModified);
+                output.writeLong(pathOffset[0]);
+                output.writeInt(pathBytes.length);
+                byte[] date = new byte[DATE_LENGTH];
+                if (record.entry.dateText != null) {
+                    byte[] text = record.entry.dateText.getBytes(StandardCharsets.US_ASCII);
+                    System.arraycopy(text, 0, date, 0, DATE_LENGTH);
+                }
+                output.write(date);
+                output.writeShort(0);
+                pathOffset[0] += pathBytes.length;
+            });
+
+            merge(pending, (record, pathBytes) -> output.write(pathBytes));
+        } catch (IOException e) {
+            logger.warn("保存EXIF索引失败: {}", file.getAbsolutePath(), e);
+            deleteQuietly(tempFile);
+            return;
+        }
+
+        // 替换前先解除映射，否则Windows上无法覆盖仍被映射的文件
+        unmap();
+        try {
+            Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            updates.clear();
+            removed.clear();
+            logger.info("已保存EXIF索引，共 {} 条记录: {}", count, file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("保存EXIF索引失败: {}", file.getAbsolutePath(), e);
+            deleteQuietly(tempFile);
+        }
+        map();
+    }
+
+    /**
+     * 按记录顺序合并映射文件中的记录和本次运行的更新，跳过已删除的记录
+     * @param pending 已排序的更新记录
+     * @param visitor 记录处理器
+     * @throws IOException 当处理器写出失败时抛出
+     */
+    private void merge(List<Record> pending, RecordVisitor visitor) throws IOException {
+        MappedByteBuffer buffer = mapped;
+        int count = buffer == null ? 0 : mappedCount;
+        int[] i = {0};
+        int j = 0;
+        Record current = readRecord(buffer, i, count);
+
+        while (current != null || j < pending.size()) {
+            Record next = j < pending.size() ? pending.get(j) : null;
+            int order = current == null ? 1 : next == null ? -1 : RECORD_ORDER.compare(current, next);
+            if (order < 0) {
+                // 已有记录：本次删除或被本次更新覆盖的跳过
+                if (!removed.contains(current.path) && !updates.containsKey(current.path)) {
+                    visitor.visit(current, current.path.getBytes(StandardCharsets.UTF_8));
+                }
+                i[0]++;
+                current = readRecord(buffer, i, count);
+            } else {
+                visitor.visit(next, next.path.getBytes(StandardCharsets.UTF_8));
+                j++;
+                if (order == 0) {
+                    i[0]++;
+                    current = readRecord(buffer, i, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在映射文件中按路径查找记录
+     * @param path 文件绝对路径
+     * @return 找到时返回记录，否则返回null
+     */
+    private Entry find(String path) {
+        MappedByteBuffer buffer = mapped;
+        if (buffer == null) {
+            return null;
+        }
+
+        long hash = hash(path.getBytes(StandardCharsets.UTF_8));
+        // 二分查找第一条哈希不小于目标值的记录
+        int low = 0;
+        int high = mappedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getLong(recordPosition(middle) + HASH_OFFSET) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        // 哈希相同的记录依次比较路径
+        for (int i = low; i < mappedCount && buffer.getLong(recordPosition(i) + HASH_OFFSET) == hash; i++) {
+            if (path.equals(readPath(buffer, i))) {
+                return readEntry(buffer, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 通过内存映射打开索引文件，只校验文件头，不读取记录
+     */
+    private void map() {
+        mapped = null;
+        mappedCount = 0;
+        if (!file.isFile()) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                logger.warn("EXIF索引文件大小无效，重新建立索引: {}", file.getAbsolutePath());
+                return;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int count = buffer.getInt(12);
+            long offset = buffer.getLong(16);
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION || count < 0
+                    || offset != HEADER_SIZE + (long) count * RECORD_SIZE || offset > fileSize) {
+                logger.warn("EXIF索引文件格式不匹配，重新建立索引: {}", file.getAbsolutePath());
+                unmap(buffer);
+                return;
+            }
+
+            stringsOffset = offset;
+            mappedCount = count;
+            mapped = buffer;
+
+        } catch (IOException e) {
+            logger.warn("读取EXIF索引失败，重新建立索引: {}", file.getAbsolutePath(), e);
+        }
+    }
+
+    private void unmap() {
+        MappedByteBuffer buffer = mapped;
+        mapped = null;
+        mappedCount = 0;
+        if (buffer != null) {
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * 立即释放内存映射。JDK没有公开的解除映射接口，这里按版本通过反射调用内部的cleaner，
+     * 失败时只能等待GC回收
+     * @param buffer 映射缓冲区，调用后不能再访问
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9及以上
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {
+            // Java 8
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                logger.debug("释放EXIF索引内存映射失败", ex);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("释放EXIF索引内存映射失败", e);
+        }
+    }
+
+    private static int recordPosition(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * 读取记录中的路径，路径范围超出文件时返回null（索引文件损坏）
+     */
+    private String readPath(ByteBuffer buffer, int index) {
+        int position = recordPosition(index);
+        long offset = stringsOffset + buffer.getLong(position + PATH_OFFSET);
+        int length = buffer.getInt(position + PATH_LENGTH_OFFSET);
+        if (length < 0 || offset < stringsOffset || offset + length > buffer.capacity()) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        for (int k = 0; k < length; k++) {
+            bytes[k] = buffer.get((int) offset + k);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Entry readEntry(ByteBuffer buffer, int index) {
+        int position = recordPosition(index);
+        byte[] date = new byte[DATE_LENGTH];
+        boolean hasDate = false;
+        for (int k = 0; k < DATE_LENGTH; k++) {
+            date[k] = buffer.get(position + DATE_OFFSET + k);
+            hasDate |= date[k] != 0;
+        }
+        return new Entry(buffer.getLong(position + SIZE_OFFSET), buffer.getLong(position + MTIME_OFFSET),
+                hasDate ? new String(date, StandardCharsets.US_ASCII) : null);
+    }
+
+    /**
+     * 从下标index开始读取第一条路径有效的记录，路径损坏的记录直接丢弃
+     * @return 记录，没有更多记录时返回null
+     */
+    private Record readRecord(ByteBuffer buffer, int[] index, int count) {
+        for (; index[0] < count; index[0]++) {
+            String path = readPath(buffer, index[0]);
+            if (path != null) {
+                return new Record(buffer.getLong(recordPosition(index[0]) + HASH_OFFSET), path,
+                        readEntry(buffer, index[0]));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 64位FNV-1a哈希
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 索引中使用的路径：绝对路径并去掉"."和".."，同一文件的不同写法对应同一条记录
+     */
+    private static String key(File imageFile) {
+        return imageFile.toPath().toAbsolutePath().normalize().toString();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("删除临时文件失败: {}", path, e);
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(File imageFile) {
+        try {
+            return Files.readAttributes(imageFile.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 合并时逐条处理记录
+     */
+    private interface RecordVisitor {
+        void visit(Record record, byte[] pathBytes) throws IOException;
+    }
+
+    /**
+     * 带路径和哈希的记录，用于排序和合并
+     */
+    private static class Record {
+        private final long hash;
+        private final String path;
+        private final Entry entry;
+
+        Record(String path, Entry entry) {
+            this(hash(path.getBytes(StandardCharsets.UTF_8)), path, entry);
+        }
+
+        Record(long hash, String path, Entry entry) {
+            this.hash = hash;
+            this.path = path;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * 单个文件的索引记录
+     */
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String dateText;
+
+        Entry(long size, long lastModified, String dateText) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.dateText = dateText;
+        }
+
+        /**
+         * @return yyyy-MM-dd格式的拍摄日期，图片没有EXIF日期时返回null
+         */
+        public String getDateText() {
+            return dateText;
+        }
+    }
+}
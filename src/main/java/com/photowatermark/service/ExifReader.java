@@ -1,6 +1,7 @@
 package com.photowatermark.service;
 
 import com.photowatermark.exception.ExifReadException;
+import com.photowatermark.util.ByteBufferInputStream;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.Imaging;
 // import org.apache.commons.imaging.common.IImageMetadata;
@@ -14,6 +15,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -23,8 +25,11 @@ import java.util.Date;
  */
 public class ExifReader {
     private static final Logger logger = LogManager.getLogger(ExifReader.class);
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy:MM:dd HH:mm:ss");
-    private static final SimpleDateFormat OUTPUT_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    // SimpleDateFormat非线程安全，并发处理时每个线程各持有一份
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy:MM:dd HH:mm:ss"));
+    private static final ThreadLocal<SimpleDateFormat> OUTPUT_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd"));
 
     /**
      * 从图片文件中读取拍摄日期
@@ -33,43 +38,88 @@ public class ExifReader {
      * @throws ExifReadException 当读取EXIF信息失败时抛出
      */
     public Date readShootDate(File file) throws ExifReadException {
+        Date shootDate = findShootDate(file);
+        if (shootDate == null) {
+            logger.warn("无法从图片中读取EXIF日期信息: {}", file.getAbsolutePath());
+        }
+        return shootDate;
+    }
+
+    /**
+     * 从图片文件中读取拍摄日期，没有日期时不输出日志，适用于批量扫描大量文件
+     * @param file 图片文件
+     * @return 拍摄日期，如果图片中没有日期信息则返回null
+     * @throws ExifReadException 当读取EXIF信息失败时抛出
+     */
+    public Date findShootDate(File file) throws ExifReadException {
         try {
              // 使用Apache Commons Imaging读取图片元数据（注意：返回的是 ImageMetadata）
             ImageMetadata metadata = Imaging.getMetadata(file);
+            return extractShootDate(metadata);
 
-            if (metadata instanceof JpegImageMetadata) {
-                JpegImageMetadata jpegMetadata = (JpegImageMetadata) metadata;
-
-                // 尝试读取拍摄日期
-                TiffField field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL);
-                if (field == null) {
-                    // 如果没有拍摄日期，尝试读取修改日期
-                    // field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME);
-                    field = jpegMetadata.findEXIFValue(TiffTagConstants.TIFF_TAG_DATE_TIME);
-                }
-                if (field == null) {
-                    // 最后尝试读取数字化日期
-                    field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME_DIGITIZED);
-                }
+        } catch (ImageReadException | IOException e) {
+            throw new ExifReadException("读取图片EXIF信息失败: " + file.getAbsolutePath(), e);
+        }
+    }
 
-                if (field != null) {
-                    String dateString = field.getStringValue();
-                    try {
-                        return DATE_FORMAT.parse(dateString);
-                    } catch (ParseException e) {
-                        logger.warn("解析日期字符串失败: {}", dateString, e);
-                    }
-                }
+    /**
+     * 从已读入内存的图片数据中读取拍摄日期
+     * @param data 图片文件的完整内容，读取不会改变缓冲区的位置
+     * @param fileName 图片文件名，用于识别格式和日志输出
+     * @return 拍摄日期，如果无法读取则返回null
+     * @throws ExifReadException 当读取EXIF信息失败时抛出
+     */
+    public Date readShootDate(ByteBuffer data, String fileName) throws ExifReadException {
+        try {
+            ImageMetadata metadata = Imaging.getMetadata(new ByteBufferInputStream(data), fileName);
+            Date shootDate = extractShootDate(metadata);
+            if (shootDate != null) {
+                return shootDate;
             }
 
-            logger.warn("无法从图片中读取EXIF日期信息: {}", file.getAbsolutePath());
+            logger.warn("无法从图片中读取EXIF日期信息: {}", fileName);
             return null;
 
         } catch (ImageReadException | IOException e) {
-            throw new ExifReadException("读取图片EXIF信息失败: " + file.getAbsolutePath(), e);
+            throw new ExifReadException("读取图片EXIF信息失败: " + fileName, e);
         }
     }
 
+    /**
+     * 从图片元数据中提取拍摄日期
+     * @param metadata 图片元数据
+     * @return 拍摄日期，如果不存在则返回null
+     * @throws ImageReadException 当读取EXIF字段失败时抛出
+     */
+    private Date extractShootDate(ImageMetadata metadata) throws ImageReadException {
+        if (metadata instanceof JpegImageMetadata) {
+            JpegImageMetadata jpegMetadata = (JpegImageMetadata) metadata;
+
+            // 尝试读取拍摄日期
+            TiffField field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL);
+            if (field == null) {
+                // 如果没有拍摄日期，尝试读取修改日期
+                // field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME);
+                field = jpegMetadata.findEXIFValue(TiffTagConstants.TIFF_TAG_DATE_TIME);
+            }
+            if (field == null) {
+                // 最后尝试读取数字化日期
+                field = jpegMetadata.findEXIFValue(ExifTagConstants.EXIF_TAG_DATE_TIME_DIGITIZED);
+            }
+
+            if (field != null) {
+                String dateString = field.getStringValue();
+                try {
+                    return DATE_FORMAT.get().parse(dateString);
+                } catch (ParseException e) {
+                    logger.warn("解析日期字符串失败: {}", dateString, e);
+                }
+            }
+        }
+
+        return null;
+    }
+
     /**
      * 将日期格式化为水印文本格式
      * @param date 日期对象
@@ -79,6 +129,6 @@ public class ExifReader {
         if (date == null) {
             return null;
         }
-        return OUTPUT_FORMAT.format(date);
+        return OUTPUT_FORMAT.get().format(date);
     }
 }
\ No newline at end of file
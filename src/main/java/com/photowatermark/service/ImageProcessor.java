@@ -4,6 +4,10 @@ import com.photowatermark.exception.ExifReadException;
 import com.photowatermark.exception.ImageProcessException;
 import com.photowatermark.model.ImageInfo;
 import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.util.ByteBufferImageInputStream;
+import com.photowatermark.util.ByteBufferImageOutputStream;
+import com.photowatermark.util.ByteBufferPool;
+import com.photowatermark.util.CostCalibration;
 import com.photowatermark.util.FileUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,10 +17,25 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 图片处理服务类，负责处理图片并添加水印
@@ -24,7 +43,16 @@ import java.util.List;
 public class ImageProcessor {
     private static final Logger logger = LogManager.getLogger(ImageProcessor.class);
     private final ExifReader exifReader = new ExifReader();
-    private static final SimpleDateFormat FALLBACK_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private final ContrastAnalyzer contrastAnalyzer = new ContrastAnalyzer();
+    private final CostCalibration costCalibration = new CostCalibration();
+    // 本次运行已解码的像素总量
+    private final AtomicLong processedPixels = new AtomicLong();
+    private static final ThreadLocal<SimpleDateFormat> FALLBACK_DATE_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd"));
+    // 虚拟线程模式下每个处理线程对应的同时I/O任务数，虚拟线程本身不限制并发，由在途图片数量限制内存
+    private static final int VIRTUAL_IO_PER_CPU_THREAD = 16;
+    // Executors.newVirtualThreadPerTaskExecutor，运行环境不支持虚拟线程时为null
+    private static final Method VIRTUAL_THREAD_FACTORY = findVirtualThreadExecutorFactory();
 
     /**
      * 处理指定配置中的图片
@@ -33,17 +61,7 @@ public class ImageProcessor {
      */
     public int processImages(WatermarkConfig config) {
         File inputFile = new File(config.getImagePath());
-        List<File> imageFiles = new ArrayList<>();
-
-        // 检查输入路径是文件还是目录
-        if (inputFile.isDirectory()) {
-            imageFiles.addAll(FileUtil.getImageFilesInDirectory(inputFile));
-        } else if (inputFile.isFile() && FileUtil.isImageFile(inputFile)) {
-            imageFiles.add(inputFile);
-        } else {
-            logger.error("无效的图片路径: {}", config.getImagePath());
-            throw new IllegalArgumentException("无效的图片路径: " + config.getImagePath());
-        }
+        List<File> imageFiles = FileUtil.collectImageFiles(inputFile);
 
         if (imageFiles.isEmpty()) {
             logger.info("没有找到可处理的图片文件");
@@ -59,75 +77,373 @@ public class ImageProcessor {
         }
         FileUtil.createDirectory(outputDir);
 
+        // 图片数据都在内存缓冲区中编解码，关闭ImageIO的磁盘临时文件缓存
+        ImageIO.setUseCache(false);
+
+        ExifIndex exifIndex = ExifIndex.open(config);
+        processedPixels.set(0);
+        long startTime = System.currentTimeMillis();
+        int successCount = config.isPipelined()
+                ? processImagesPipelined(imageFiles, outputDir, config, exifIndex)
+                : processImagesSequential(imageFiles, outputDir, config, exifIndex);
+
+        if (inputFile.isDirectory()) {
+            exifIndex.pruneDirectory(inputFile);
+        }
+        exifIndex.save();
+
+        // 记录本次每百万像素的耗时，供计划模式估算
+        costCalibration.record(processedPixels.get() / 1_000_000.0,
+                System.currentTimeMillis() - startTime, config.getThreads());
+
+        return successCount;
+    }
+
+    /**
+     * 在当前线程中逐张处理图片
+     * @param imageFiles 待处理的图片文件列表
+     * @param outputDir 输出目录
+     * @param config 水印配置
+     * @param exifIndex EXIF日期索引
+     * @return 成功处理的图片数量
+     */
+    private int processImagesSequential(List<File> imageFiles, File outputDir, WatermarkConfig config,
+                                        ExifIndex exifIndex) {
+        int poolSize = config.getBufferPoolSize() > 0 ? config.getBufferPoolSize() : 2;
+        ByteBufferPool bufferPool = new ByteBufferPool(poolSize);
         int successCount = 0;
 
         // 处理每张图片
         for (File file : imageFiles) {
             try {
-                processSingleImage(file, outputDir, config);
+                processSingleImage(file, outputDir, config, bufferPool, exifIndex);
                 successCount++;
             } catch (Exception e) {
                 logger.error("处理图片失败: {}", file.getAbsolutePath(), e);
             }
         }
 
+        logger.info("缓冲区池统计: {}", bufferPool.describeUsage());
         return successCount;
     }
 
     /**
-     * 处理单张图片
-     * @param inputFile 输入图片文件
+     * 使用I/O与CPU分离的线程池并发处理图片
+     * 读取和写出文件在I/O线程池中执行，适合NFS/FUSE等高延迟存储；
+     * 解码、绘制和编码在大小受限的处理线程池中执行
+     * @param imageFiles 待处理的图片文件列表
      * @param outputDir 输出目录
      * @param config 水印配置
-     * @throws ImageProcessException 当处理图片失败时抛出
+     * @param exifIndex EXIF日期索引
+     * @return 成功处理的图片数量
      */
-    private void processSingleImage(File inputFile, File outputDir, WatermarkConfig config) throws ImageProcessException {
+    private int processImagesPipelined(List<File> imageFiles, File outputDir, WatermarkConfig config,
+                                       ExifIndex exifIndex) {
+        int cpuThreads = config.getThreads();
+        int ioThreads = ioConcurrency(config, cpuThreads);
+        ExecutorService ioPool = newIoExecutor(config, ioThreads, "pw-io");
+        if (config.isVirtualIoThreads() && isVirtualThreadSupported()) {
+            logger.info("使用并发模式处理: 处理线程 {} 个，I/O使用虚拟线程，同时最多 {} 个任务", cpuThreads, ioThreads);
+        } else {
+            logger.info("使用并发模式处理: 处理线程 {} 个，I/O线程 {} 个", cpuThreads, ioThreads);
+        }
+
+        ExecutorService cpuPool = Executors.newFixedThreadPool(cpuThreads, namedThreadFactory("pw-cpu"));
+        // 限制同时在内存中的图片数量，避免读取速度远快于处理速度时内存膨胀
+        int maxInFlight = maxInFlight(cpuThreads, ioThreads);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        // 每张图片同时最多占用输入和输出两个缓冲区
+        int poolSize = config.getBufferPoolSize() > 0 ? config.getBufferPoolSize() : maxInFlight * 2;
+        ByteBufferPool bufferPool = new ByteBufferPool(poolSize);
+        AtomicInteger successCount = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(imageFiles.size());
+
         try {
-            // 读取图片
-            BufferedImage image = ImageIO.read(inputFile);
-            if (image == null) {
-                throw new ImageProcessException("无法读取图片文件: " + inputFile.getAbsolutePath());
+            for (File file : imageFiles) {
+                inFlight.acquireUninterruptibly();
+                File outputFile = new File(outputDir, file.getName());
+                CompletableFuture<Void> task = CompletableFuture
+                        .supplyAsync(() -> readSourceImage(file, bufferPool, exifIndex), ioPool)
+                        .thenApplyAsync(source -> renderImage(source, config, bufferPool), cpuPool)
+                        .thenAcceptAsync(encoded -> writeOutputImage(encoded, outputFile), ioPool)
+                        .handle((ignored, e) -> {
+                            inFlight.release();
+                            if (e == null) {
+                                successCount.incrementAndGet();
+                                logger.info("成功处理并保存图片: {}", outputFile.getAbsolutePath());
+                            } else {
+                                Throwable cause = e instanceof CompletionException && e.getCause() != null
+                                        ? e.getCause() : e;
+                                logger.error("处理图片失败: {}", file.getAbsolutePath(), cause);
+                            }
+                            return null;
+                        });
+                tasks.add(task);
             }
 
-            // 创建ImageInfo对象
-            ImageInfo imageInfo = new ImageInfo(inputFile);
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            ioPool.shutdown();
+            cpuPool.shutdown();
+        }
 
-            // 读取拍摄日期
-            try {
-                Date shootDate = exifReader.readShootDate(inputFile);
+        logger.info("缓冲区池统计: {}", bufferPool.describeUsage());
+        return successCount.get();
+    }
+
+    /**
+     * 将图片文件读入池化缓冲区并读取水印文本（I/O阶段）
+     * @param inputFile 输入图片文件
+     * @param bufferPool 缓冲区池
+     * @param exifIndex EXIF日期索引，命中时跳过EXIF解析
+     * @return 读入内存的图片
+     * @throws ImageProcessException 当读取文件失败时抛出
+     */
+    private SourceImage readSourceImage(File inputFile, ByteBufferPool bufferPool,
+                                        ExifIndex exifIndex) throws ImageProcessException {
+        ByteBuffer data = null;
+        try (FileChannel channel = openInput(inputFile)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ImageProcessException("图片文件过大: " + inputFile.getAbsolutePath());
+            }
+            data = bufferPool.acquire((int) size);
+            data.limit((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // 读满为止
+            }
+            data.flip();
+        } catch (IOException e) {
+            bufferPool.release(data);
+            throw new ImageProcessException("读取图片文件失败: " + inputFile.getAbsolutePath(), e);
+        } catch (RuntimeException e) {
+            bufferPool.release(data);
+            throw e;
+        }
+
+        ImageInfo imageInfo = new ImageInfo(inputFile);
+
+        // 读取拍摄日期，索引中已有且文件未变化时直接使用索引中的结果
+        try {
+            ExifIndex.Entry cached = exifIndex.lookup(inputFile);
+            String watermarkText;
+            if (cached != null) {
+                watermarkText = cached.getDateText();
+            } else {
+                Date shootDate = exifReader.readShootDate(data, inputFile.getName());
                 imageInfo.setShootDate(shootDate);
+                // 格式化日期作为水印文本，成功解析的结果（包括没有日期）才写入索引
+                watermarkText = exifReader.formatDateForWatermark(shootDate);
+                exifIndex.put(inputFile, watermarkText);
+            }
 
-                // 格式化日期作为水印文本
-                String watermarkText = exifReader.formatDateForWatermark(shootDate);
-                if (watermarkText == null) {
-                    // 如果没有EXIF日期信息，使用当前日期作为备选
-                    watermarkText = FALLBACK_DATE_FORMAT.format(new Date());
-                    logger.warn("使用当前日期作为水印: {}", watermarkText);
-                }
-                imageInfo.setWatermarkText(watermarkText);
+            if (watermarkText == null) {
+                // 如果没有EXIF日期信息，使用当前日期作为备选
+                watermarkText = FALLBACK_DATE_FORMAT.get().format(new Date());
+                logger.warn("使用当前日期作为水印: {}", watermarkText);
+            }
+            imageInfo.setWatermarkText(watermarkText);
 
-            } catch (ExifReadException e) {
-                // 读取EXIF失败时，使用当前日期作为水印
-                String watermarkText = FALLBACK_DATE_FORMAT.format(new Date());
-                imageInfo.setWatermarkText(watermarkText);
-                logger.warn("读取EXIF信息失败，使用当前日期作为水印: {}", watermarkText);
+        } catch (ExifReadException e) {
+            // 读取EXIF失败时，使用当前日期作为水印；失败可能是暂时的I/O错误，不写入索引
+            String watermarkText = FALLBACK_DATE_FORMAT.get().format(new Date());
+            imageInfo.setWatermarkText(watermarkText);
+            logger.warn("读取EXIF信息失败，使用当前日期作为水印: {}", watermarkText);
+        } catch (RuntimeException e) {
+            // Commons Imaging对格式异常的文件可能抛出未检查异常，此时必须归还缓冲区
+            bufferPool.release(data);
+            throw e;
+        }
+
+        return new SourceImage(imageInfo, data);
+    }
+
+    /**
+     * 解码图片、添加水印并重新编码（CPU阶段），完成后归还输入缓冲区
+     * @param source 读入内存的图片
+     * @param config 水印配置
+     * @param bufferPool 缓冲区池
+     * @return 编码后的图片数据，写出后需要关闭以归还缓冲区
+     * @throws ImageProcessException 当解码或编码失败时抛出
+     */
+    private ByteBufferImageOutputStream renderImage(SourceImage source, WatermarkConfig config,
+                                                    ByteBufferPool bufferPool) throws ImageProcessException {
+        File inputFile = source.imageInfo.getFile();
+        ByteBufferImageOutputStream output = null;
+        try {
+            // ImageIO.read会在读取完成后关闭该流
+            BufferedImage image = ImageIO.read(new ByteBufferImageInputStream(source.data));
+            if (image == null) {
+                throw new ImageProcessException("无法读取图片文件: " + inputFile.getAbsolutePath());
             }
+            processedPixels.addAndGet((long) image.getWidth() * image.getHeight());
 
             // 添加水印
-            BufferedImage watermarkedImage = addWatermark(image, imageInfo.getWatermarkText(), config);
+            BufferedImage watermarkedImage = addWatermark(image, source.imageInfo.getWatermarkText(), config);
 
-            // 保存处理后的图片
-            String outputFileName = outputDir.getAbsolutePath() + File.separator + inputFile.getName();
-            String formatName = FileUtil.getImageFormat(inputFile);
-            if (!ImageIO.write(watermarkedImage, formatName, new File(outputFileName))) {
-                throw new ImageProcessException("保存图片失败: " + outputFileName);
+            output = new ByteBufferImageOutputStream(bufferPool, source.data.remaining());
+            if (!ImageIO.write(watermarkedImage, FileUtil.getImageFormat(inputFile), output)) {
+                throw new ImageProcessException("编码图片失败: " + inputFile.getAbsolutePath());
             }
-
-            logger.info("成功处理并保存图片: {}", outputFileName);
+            return output;
 
         } catch (IOException e) {
+            if (output != null) {
+                output.close();
+            }
             throw new ImageProcessException("处理图片失败: " + inputFile.getAbsolutePath(), e);
+        } catch (RuntimeException e) {
+            if (output != null) {
+                output.close();
+            }
+            throw e;
+        } finally {
+            bufferPool.release(source.data);
+        }
+    }
+
+    /**
+     * 将编码后的图片数据写入输出文件（I/O阶段），完成后归还输出缓冲区
+     * @param encoded 编码后的图片数据
+     * @param outputFile 输出文件
+     * @throws ImageProcessException 当写入文件失败时抛出
+     */
+    private void writeOutputImage(ByteBufferImageOutputStream encoded, File outputFile) throws ImageProcessException {
+        try (FileChannel channel = openOutput(outputFile)) {
+            ByteBuffer data = encoded.getData();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            throw new ImageProcessException("保存图片失败: " + outputFile.getAbsolutePath(), e);
+        } finally {
+            encoded.close();
+        }
+    }
+
+    /**
+     * 打开输入图片文件，子类可以覆盖此方法以接入其他存储或模拟存储延迟
+     * @param inputFile 输入图片文件
+     * @return 只读文件通道
+     * @throws IOException 当打开文件失败时抛出
+     */
+    protected FileChannel openInput(File inputFile) throws IOException {
+        return FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * 打开输出图片文件，已存在时清空，子类可以覆盖此方法以接入其他存储或模拟存储延迟
+     * @param outputFile 输出图片文件
+     * @return 可写文件通道
+     * @throws IOException 当打开文件失败时抛出
+     */
+    protected FileChannel openOutput(File outputFile) throws IOException {
+        return FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 创建带名称前缀的守护线程工厂，便于在日志中区分线程池
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    /**
+     * 并发模式下同时进行的I/O任务数
+     * @param config 水印配置
+     * @param cpuThreads 处理线程数
+     * @return 未指定I/O线程数时与处理线程数相同，使用虚拟线程时为处理线程数的固定倍数
+     */
+    static int ioConcurrency(WatermarkConfig config, int cpuThreads) {
+        if (config.isVirtualIoThreads()) {
+            return cpuThreads * VIRTUAL_IO_PER_CPU_THREAD;
+        }
+        return config.getIoThreads() > 0 ? config.getIoThreads() : cpuThreads;
+    }
+
+    /**
+     * 创建执行文件读写的线程池。配置为虚拟线程且运行在Java 21及以上时每个任务使用一个虚拟线程，
+     * 否则使用固定大小的平台线程池
+     * @param config 水印配置
+     * @param threads 平台线程池的线程数
+     * @param prefix 平台线程名前缀
+     * @return 线程池
+     */
+    static ExecutorService newIoExecutor(WatermarkConfig config, int threads, String prefix) {
+        if (config.isVirtualIoThreads()) {
+            if (VIRTUAL_THREAD_FACTORY != null) {
+                try {
+                    return (ExecutorService) VIRTUAL_THREAD_FACTORY.invoke(null);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    logger.warn("创建虚拟线程池失败，使用 {} 个平台I/O线程", threads, e);
+                }
+            } else {
+                logger.warn("当前Java版本不支持虚拟线程（需要Java 21及以上），使用 {} 个平台I/O线程", threads);
+            }
         }
+        return Executors.newFixedThreadPool(threads, namedThreadFactory(prefix));
+    }
+
+    /**
+     * 当前运行环境是否支持虚拟线程
+     * @return Java 21及以上返回true
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * 项目以Java 8为编译目标，通过反射查找Executors.newVirtualThreadPerTaskExecutor
+     * @return 找到且可用时返回该方法，否则返回null
+     */
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // Java 19、20未启用预览功能时调用会抛出UnsupportedOperationException
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 并发模式下同时在内存中的图片数量上限：每个I/O任务一张，处理线程前各排队两张
+     * @param cpuThreads 处理线程数
+     * @param ioThreads I/O任务数
+     * @return 图片数量上限
+     */
+    static int maxInFlight(int cpuThreads, int ioThreads) {
+        return ioThreads + cpuThreads * 2;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 处理单张图片
+     * @param inputFile 输入图片文件
+     * @param outputDir 输出目录
+     * @param config 水印配置
+     * @param bufferPool 缓冲区池
+     * @param exifIndex EXIF日期索引
+     * @throws ImageProcessException 当处理图片失败时抛出
+     */
+    private void processSingleImage(File inputFile, File outputDir, WatermarkConfig config,
+                                    ByteBufferPool bufferPool, ExifIndex exifIndex) throws ImageProcessException {
+        SourceImage source = readSourceImage(inputFile, bufferPool, exifIndex);
+        ByteBufferImageOutputStream encoded = renderImage(source, config, bufferPool);
+
+        // 保存处理后的图片
+        File outputFile = new File(outputDir, inputFile.getName());
+        writeOutputImage(encoded, outputFile);
+
+        logger.info("成功处理并保存图片: {}", outputFile.getAbsolutePath());
     }
 
     /**
@@ -149,20 +465,58 @@ public class ImageProcessor {
         g2d.drawImage(image, 0, 0, null);
 
         // 设置水印属性
-        g2d.setColor(config.getColor());
         g2d.setFont(new Font("Arial", Font.BOLD, config.getFontSize()));
-
-        // 计算水印位置
         FontMetrics fontMetrics = g2d.getFontMetrics();
         int textWidth = fontMetrics.stringWidth(watermarkText);
-        int textHeight = fontMetrics.getHeight();
 
+        String position = config.getPosition();
+        Color color = config.getColor();
+
+        // 自动模式下根据候选区域的亮度统计选择位置和颜色
+        if (config.isAutoPosition() || config.isAutoColor()) {
+            List<String> positions = config.isAutoPosition()
+                    ? WatermarkConfig.POSITIONS : Collections.singletonList(position);
+            Map<String, Rectangle> candidates = new LinkedHashMap<>();
+            for (String candidate : positions) {
+                Point origin = computeTextOrigin(candidate, image, textWidth, fontMetrics.getHeight());
+                candidates.put(candidate, new Rectangle(origin.x, origin.y - fontMetrics.getAscent(),
+                        textWidth, fontMetrics.getHeight()));
+            }
+
+            ContrastAnalyzer.Placement placement = contrastAnalyzer.choose(
+                    image, candidates, config.isAutoColor() ? null : color);
+            // 所有候选区域都在图片之外时（图片比水印文字还小）保留配置的位置和颜色
+            if (placement != null) {
+                position = placement.getPosition();
+                color = placement.getColor();
+                logger.debug("自动选择水印位置: {}，颜色: {}", position, color);
+            }
+        }
+
+        // 绘制水印文本
+        Point origin = computeTextOrigin(position, image, textWidth, fontMetrics.getHeight());
+        g2d.setColor(color);
+        g2d.drawString(watermarkText, origin.x, origin.y);
+
+        // 释放资源
+        g2d.dispose();
+
+        return watermarkedImage;
+    }
+
+    /**
+     * 根据位置参数计算水印文本的基线坐标
+     * @param position 位置字符串
+     * @param image 图片
+     * @param textWidth 水印文本宽度
+     * @param textHeight 水印文本高度
+     * @return 水印文本的绘制坐标
+     */
+    private Point computeTextOrigin(String position, BufferedImage image, int textWidth, int textHeight) {
         int x = 0;
         int y = 0;
         int padding = 20; // 边距
 
-        // 根据位置参数计算水印坐标
-        String position = config.getPosition();
         switch (position) {
             case "top-left":
                 x = padding;
@@ -203,12 +557,19 @@ public class ImageProcessor {
                 break;
         }
 
-        // 绘制水印文本
-        g2d.drawString(watermarkText, x, y);
+        return new Point(x, y);
+    }
 
-        // 释放资源
-        g2d.dispose();
+    /**
+     * 已读入内存、等待解码的图片
+     */
+    private static class SourceImage {
+        private final ImageInfo imageInfo;
+        private final ByteBuffer data;
 
-        return watermarkedImage;
+        SourceImage(ImageInfo imageInfo, ByteBuffer data) {
+            this.imageInfo = imageInfo;
+            this.data = data;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.photowatermark.util;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于内存缓冲区的ImageInputStream，供ImageIO直接解码已读入的图片数据，
+ * 不经过ImageIO的磁盘或内存缓存
+ */
+public class ByteBufferImageInputStream extends ImageInputStreamImpl {
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer 图片数据，从position到limit之间的内容为有效数据
+     */
+    public ByteBufferImageInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() {
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        bitOffset = 0;
+        return buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        bitOffset = 0;
+        int count = (int) Math.min(len, buffer.limit() - streamPos);
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) streamPos);
+        view.get(b, off, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+}
@@ -0,0 +1,109 @@
+package com.photowatermark.util;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于缓冲区池的ImageOutputStream，用于收集ImageIO编码后的图片数据，
+ * 不经过ImageIO的磁盘临时文件缓存。容量不足时从池中换取更大的缓冲区
+ */
+public class ByteBufferImageOutputStream extends ImageOutputStreamImpl {
+    private final ByteBufferPool pool;
+    private ByteBuffer buffer;
+    private int length;
+
+    /**
+     * @param pool 缓冲区池
+     * @param initialCapacity 预计的编码后大小
+     */
+    public ByteBufferImageOutputStream(ByteBufferPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.buffer = pool.acquire(initialCapacity);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + 1);
+        buffer.put((int) streamPos++, (byte) b);
+        length = (int) Math.max(length, streamPos);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + len);
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) streamPos);
+        view.put(b, off, len);
+        streamPos += len;
+        length = (int) Math.max(length, streamPos);
+    }
+
+    @Override
+    public int read() {
+        if (streamPos >= length) {
+            return -1;
+        }
+        bitOffset = 0;
+        return buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (streamPos >= length) {
+            return -1;
+        }
+        bitOffset = 0;
+        int count = (int) Math.min(len, length - streamPos);
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) streamPos);
+        view.get(b, off, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 获取已写入的数据
+     * @return 从0到已写入长度的只读视图，在{@link #close()}之前有效
+     */
+    public ByteBuffer getData() {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.position(0);
+        view.limit(length);
+        return view;
+    }
+
+    /**
+     * 关闭流并将缓冲区归还到池中
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private void ensureCapacity(long required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        // 按倍数扩容，减少编码大图时的复制次数
+        long target = Math.max(required, (long) buffer.capacity() * 2);
+        ByteBuffer larger = pool.acquire((int) Math.min(Integer.MAX_VALUE, target));
+        ByteBuffer old = buffer.duplicate();
+        old.position(0);
+        old.limit(length);
+        larger.put(old);
+        larger.clear();
+        pool.release(buffer);
+        buffer = larger;
+    }
+}
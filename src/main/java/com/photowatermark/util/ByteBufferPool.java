@@ -0,0 +1,134 @@
+package com.photowatermark.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * 直接内存缓冲区池，用于在批量处理中复用读取和编码图片所需的大块缓冲区，
+ * 避免数MB的字节数组频繁进入新生代
+ */
+public class ByteBufferPool {
+    // 新分配的缓冲区容量按此粒度向上取整，便于被后续大小相近的图片复用
+    private static final int ALIGNMENT = 256 * 1024;
+
+    private final int maxPooled;
+    private final Deque<ByteBuffer> free = new ArrayDeque<>();
+
+    private long acquireCount;
+    private long reuseCount;
+    private long allocateCount;
+    private long allocatedBytes;
+    private long discardCount;
+    private int inUse;
+    private int peakInUse;
+
+    /**
+     * @param maxPooled 池中最多保留的空闲缓冲区数量
+     */
+    public ByteBufferPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * 获取容量不小于指定大小的缓冲区，使用完毕后必须调用{@link #release(ByteBuffer)}归还
+     * @param minCapacity 需要的最小容量
+     * @return 已清空的直接缓冲区
+     */
+    public synchronized ByteBuffer acquire(int minCapacity) {
+        acquireCount++;
+
+        // 选择能容纳所需大小的最小空闲缓冲区
+        ByteBuffer best = null;
+        ByteBuffer smallest = null;
+        for (ByteBuffer candidate : free) {
+            if (candidate.capacity() >= minCapacity
+                    && (best == null || candidate.capacity() < best.capacity())) {
+                best = candidate;
+            }
+            if (smallest == null || candidate.capacity() < smallest.capacity()) {
+                smallest = candidate;
+            }
+        }
+
+        if (best != null) {
+            removeIdentity(best);
+            reuseCount++;
+        } else {
+            // 池已满且没有足够大的缓冲区时丢弃最小的一个，让池逐渐适应实际的图片大小；
+            // 池未满时保留已有缓冲区，避免产生只能等待GC回收的直接内存
+            if (smallest != null && free.size() >= maxPooled) {
+                removeIdentity(smallest);
+                discardCount++;
+            }
+            int capacity = (int) Math.min(Integer.MAX_VALUE,
+                    ((long) Math.max(minCapacity, 1) + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+            best = ByteBuffer.allocateDirect(capacity);
+            allocateCount++;
+            allocatedBytes += capacity;
+        }
+
+        inUse++;
+        peakInUse = Math.max(peakInUse, inUse);
+        best.clear();
+        return best;
+    }
+
+    /**
+     * 归还缓冲区，池已满时直接丢弃
+     * @param buffer 通过{@link #acquire(int)}获取的缓冲区
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        inUse--;
+        if (free.size() < maxPooled) {
+            free.push(buffer);
+        } else {
+            discardCount++;
+        }
+    }
+
+    /**
+     * @return 当前已借出未归还的缓冲区数量
+     */
+    public synchronized int getInUse() {
+        return inUse;
+    }
+
+    /**
+     * @return 当前池中空闲的缓冲区数量
+     */
+    public synchronized int getFreeCount() {
+        return free.size();
+    }
+
+    /**
+     * @return 累计新分配的缓冲区数量
+     */
+    public synchronized long getAllocateCount() {
+        return allocateCount;
+    }
+
+    /**
+     * 获取缓冲区池的使用统计
+     * @return 统计信息描述
+     */
+    public synchronized String describeUsage() {
+        return String.format("获取 %d 次，复用 %d 次，新分配 %d 个（共 %.1f MB），丢弃 %d 个，同时使用峰值 %d 个",
+                acquireCount, reuseCount, allocateCount, allocatedBytes / (1024.0 * 1024.0),
+                discardCount, peakInUse);
+    }
+
+    private void removeIdentity(ByteBuffer buffer) {
+        // ByteBuffer.equals比较的是内容，这里必须按引用移除
+        for (Iterator<ByteBuffer> it = free.iterator(); it.hasNext(); ) {
+            if (it.next() == buffer) {
+                it.remove();
+                return;
+            }
+        }
+    }
+}
@@ -58,7 +58,9 @@ public class CommandLineParser {
             if (cmd.hasOption("color")) {
                 String colorStr = cmd.getOptionValue("color").toLowerCase();
                 Color color = parseColor(colorStr);
-                if (color != null) {
+                if ("auto".equals(colorStr)) {
+                    config.setAutoColor(true);
+                } else if (color != null) {
                     config.setColor(color);
                 } else {
                     System.err.println("警告: 无效的颜色值，使用默认值");
@@ -67,13 +69,56 @@ public class CommandLineParser {
 
             if (cmd.hasOption("position")) {
                 String position = cmd.getOptionValue("position").toLowerCase();
-                if (isValidPosition(position)) {
+                if ("auto".equals(position)) {
+                    config.setAutoPosition(true);
+                } else if (isValidPosition(position)) {
                     config.setPosition(position);
                 } else {
                     System.err.println("警告: 无效的位置值，使用默认值");
                 }
             }
 
+            if (cmd.hasOption("threads")) {
+                Integer threads = parsePositiveInt(cmd.getOptionValue("threads"));
+                if (threads != null) {
+                    config.setThreads(threads);
+                } else {
+                    System.err.println("警告: 无效的处理线程数，使用默认值");
+                }
+            }
+
+            if (cmd.hasOption("io-threads")) {
+                String value = cmd.getOptionValue("io-threads");
+                if ("virtual".equals(value)) {
+                    config.setVirtualIoThreads(true);
+                } else {
+                    Integer ioThreads = parsePositiveInt(value);
+                    if (ioThreads != null) {
+                        config.setIoThreads(ioThreads);
+                    } else {
+                        System.err.println("警告: 无效的I/O线程数，使用默认值");
+                    }
+                }
+            }
+
+            if (cmd.hasOption("buffer-pool")) {
+                Integer poolSize = parsePositiveInt(cmd.getOptionValue("buffer-pool"));
+                if (poolSize != null) {
+                    config.setBufferPoolSize(poolSize);
+                } else {
+                    System.err.println("警告: 无效的缓冲区池大小，使用默认值");
+                }
+            }
+
+            config.setPlanOnly(cmd.hasOption("plan"));
+
+            if (cmd.hasOption("exif-index")) {
+                config.setExifIndexPath(cmd.getOptionValue("exif-index"));
+            }
+            if (cmd.hasOption("no-exif-index")) {
+                config.setExifIndexEnabled(false);
+            }
+
             return config;
 
         } catch (ParseException e) {
@@ -109,7 +154,7 @@ public class CommandLineParser {
                 .longOpt("color")
                 .hasArg()
                 .argName("颜色")
-                .desc("设置水印颜色（默认: white，可选值: black, white, red, blue, green 或十六进制颜色码）")
+                .desc("设置水印颜色（默认: white，可选值: black, white, red, blue, green, 十六进制颜色码或 auto（根据背景亮度自动选择黑色或白色））")
                 .build());
 
         // 位置选项
@@ -117,12 +162,70 @@ public class CommandLineParser {
                 .longOpt("position")
                 .hasArg()
                 .argName("位置")
-                .desc("设置水印位置（默认: bottom-right，可选值: top-left, top-center, top-right, center-left, center, center-right, bottom-left, bottom-center, bottom-right）")
+                .desc("设置水印位置（默认: bottom-right，可选值: top-left, top-center, top-right, center-left, center, center-right, bottom-left, bottom-center, bottom-right 或 auto（自动选择背景最平坦、对比度最高的位置））")
+                .build());
+
+        // 处理线程数选项
+        options.addOption(Option.builder("t")
+                .longOpt("threads")
+                .hasArg()
+                .argName("线程数")
+                .desc("设置解码、绘制和编码使用的处理线程数（默认: 1，即顺序处理）")
+                .build());
+
+        // I/O线程数选项
+        options.addOption(Option.builder()
+                .longOpt("io-threads")
+                .hasArg()
+                .argName("线程数")
+                .desc("设置读写文件使用的I/O线程数，适用于NFS等高延迟存储；virtual表示每个文件使用一个虚拟线程，"
+                        + "需要Java 21及以上（默认: 与处理线程数相同）")
+                .build());
+
+        // 缓冲区池大小选项
+        options.addOption(Option.builder()
+                .longOpt("buffer-pool")
+                .hasArg()
+                .argName("数量")
+                .desc("设置读写图片使用的直接内存缓冲区池最多保留的缓冲区数量（默认: 按线程数自动计算）")
+                .build());
+
+        // 计划模式选项
+        options.addOption(Option.builder()
+                .longOpt("plan")
+                .desc("只读取文件头和EXIF日期，估算内存、像素总量和耗时并给出推荐参数，不处理图片")
+                .build());
+
+        // EXIF索引选项
+        options.addOption(Option.builder()
+                .longOpt("exif-index")
+                .hasArg()
+                .argName("文件")
+                .desc("设置EXIF日期索引文件，重复处理同一批图片时跳过EXIF解析（默认: ~/.photowatermark/exif-index.bin）")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("no-exif-index")
+                .desc("不使用EXIF日期索引，每次都重新读取EXIF信息")
                 .build());
 
         return options;
     }
 
+    /**
+     * 解析正整数参数
+     * @param value 参数字符串
+     * @return 解析得到的正整数，如果无效则返回null
+     */
+    private Integer parsePositiveInt(String value) {
+        try {
+            int result = Integer.parseInt(value);
+            return result > 0 ? result : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * 解析颜色字符串
      * @param colorStr 颜色字符串
@@ -168,20 +271,7 @@ public class CommandLineParser {
      * @return 如果位置有效则返回true，否则返回false
      */
     private boolean isValidPosition(String position) {
-        switch (position) {
-            case "top-left":
-            case "top-center":
-            case "top-right":
-            case "center-left":
-            case "center":
-            case "center-right":
-            case "bottom-left":
-            case "bottom-center":
-            case "bottom-right":
-                return true;
-            default:
-                return false;
-        }
+        return WatermarkConfig.POSITIONS.contains(position);
     }
 
     /**
@@ -0,0 +1,117 @@
+package com.photowatermark.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * 处理耗时校准工具类，记录历次运行中每百万像素的单线程处理耗时，供计划模式估算运行时间
+ */
+public class CostCalibration {
+    private static final Logger logger = LogManager.getLogger(CostCalibration.class);
+
+    // 没有历史记录时使用的默认值（单线程每百万像素毫秒数）
+    public static final double DEFAULT_MILLIS_PER_MEGAPIXEL = 40.0;
+    // 新样本在滑动平均中的权重
+    private static final double SAMPLE_WEIGHT = 0.3;
+    // 像素总量太少的运行受启动开销影响大，不参与校准
+    private static final double MIN_SAMPLE_MEGAPIXELS = 50.0;
+
+    private static final String KEY_MILLIS_PER_MEGAPIXEL = "millisPerMegapixel";
+    private static final String KEY_SAMPLES = "samples";
+
+    private final File file;
+
+    public CostCalibration() {
+        this(new File(System.getProperty("user.home"), ".photowatermark" + File.separator + "calibration.properties"));
+    }
+
+    public CostCalibration(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 获取校准后的单线程每百万像素处理耗时
+     * @return 毫秒数，没有历史记录时返回默认值
+     */
+    public double getMillisPerMegapixel() {
+        Properties properties = load();
+        String value = properties.getProperty(KEY_MILLIS_PER_MEGAPIXEL);
+        if (value == null) {
+            return DEFAULT_MILLIS_PER_MEGAPIXEL;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.warn("校准文件内容无效，使用默认值: {}", file.getAbsolutePath());
+            return DEFAULT_MILLIS_PER_MEGAPIXEL;
+        }
+    }
+
+    /**
+     * 是否已有历史运行记录
+     * @return 有记录时返回true
+     */
+    public boolean isCalibrated() {
+        return load().getProperty(KEY_MILLIS_PER_MEGAPIXEL) != null;
+    }
+
+    /**
+     * 记录一次运行的耗时
+     * @param megapixels 本次处理的像素总量（百万像素）
+     * @param elapsedMillis 本次运行的耗时
+     * @param threads 本次运行使用的处理线程数
+     */
+    public void record(double megapixels, long elapsedMillis, int threads) {
+        if (megapixels < MIN_SAMPLE_MEGAPIXELS || elapsedMillis <= 0) {
+            return;
+        }
+
+        // 处理线程数超过CPU核数时实际并行度只有核数，按线程数换算会把单线程耗时放大
+        int parallelism = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+        double sample = (double) elapsedMillis * parallelism / megapixels;
+        Properties properties = load();
+        int samples = 0;
+        double value = sample;
+        try {
+            samples = Integer.parseInt(properties.getProperty(KEY_SAMPLES, "0"));
+            String previous = properties.getProperty(KEY_MILLIS_PER_MEGAPIXEL);
+            if (previous != null) {
+                value = (1 - SAMPLE_WEIGHT) * Double.parseDouble(previous) + SAMPLE_WEIGHT * sample;
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("校准文件内容无效，重新开始记录: {}", file.getAbsolutePath());
+        }
+
+        properties.setProperty(KEY_MILLIS_PER_MEGAPIXEL, String.valueOf(value));
+        properties.setProperty(KEY_SAMPLES, String.valueOf(samples + 1));
+
+        FileUtil.createDirectory(file.getParentFile());
+        try (OutputStream output = new FileOutputStream(file)) {
+            properties.store(output, "PhotoWatermark cost calibration");
+        } catch (IOException e) {
+            logger.warn("保存校准文件失败: {}", file.getAbsolutePath(), e);
+        }
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream input = new FileInputStream(file)) {
+                properties.load(input);
+            } catch (IOException | IllegalArgumentException e) {
+                // 文件中有格式错误的Unicode转义时load会抛出IllegalArgumentException，按没有记录处理
+                logger.warn("读取校准文件失败: {}", file.getAbsolutePath(), e);
+                properties.clear();
+            }
+        }
+        return properties;
+    }
+}
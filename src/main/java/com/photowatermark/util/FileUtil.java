@@ -86,6 +86,28 @@ public class FileUtil {
         return imageFiles;
     }
 
+    /**
+     * 获取输入路径对应的所有图片文件
+     * @param inputFile 图片文件或目录
+     * @return 图片文件列表
+     * @throws IllegalArgumentException 当输入路径既不是目录也不是支持的图片文件时抛出
+     */
+    public static List<File> collectImageFiles(File inputFile) {
+        List<File> imageFiles = new ArrayList<>();
+
+        // 检查输入路径是文件还是目录
+        if (inputFile.isDirectory()) {
+            imageFiles.addAll(getImageFilesInDirectory(inputFile));
+        } else if (inputFile.isFile() && isImageFile(inputFile)) {
+            imageFiles.add(inputFile);
+        } else {
+            logger.error("无效的图片路径: {}", inputFile.getPath());
+            throw new IllegalArgumentException("无效的图片路径: " + inputFile.getPath());
+        }
+
+        return imageFiles;
+    }
+
     /**
      * 创建目录，如果目录已存在则忽略
      * @param directory 要创建的目录
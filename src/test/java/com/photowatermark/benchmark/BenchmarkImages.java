@@ -0,0 +1,84 @@
+package com.photowatermark.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 基准测试用的图片生成工具，生成带渐变和噪点的JPEG，使编解码开销接近真实照片
+ */
+final class BenchmarkImages {
+    private BenchmarkImages() {
+    }
+
+    /**
+     * 生成指定像素数的测试图片
+     * @param megapixels 百万像素数，按3:2的宽高比生成
+     * @param seed 随机种子
+     * @return 图片
+     */
+    static BufferedImage create(double megapixels, long seed) {
+        int width = (int) Math.sqrt(megapixels * 1_000_000 * 3 / 2);
+        int height = (int) (width * 2 / 3.0);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+
+        Graphics2D g2d = image.createGraphics();
+        // 上半部分为明亮的天空，下半部分较暗，便于自动对比度选择出不同的结果
+        g2d.setPaint(new GradientPaint(0, 0, new Color(235, 240, 250), 0, height, new Color(40, 60, 30)));
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(41) - 20;
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int g = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 在临时目录中生成一批JPEG测试图片
+     * @param count 图片数量
+     * @param megapixels 每张图片的百万像素数
+     * @return 图片所在目录
+     * @throws IOException 当写入失败时抛出
+     */
+    static File createDirectory(int count, double megapixels) throws IOException {
+        File directory = Files.createTempDirectory("pw-bench-").toFile();
+        BufferedImage image = create(megapixels, 42);
+        for (int i = 0; i < count; i++) {
+            ImageIO.write(image, "jpg", new File(directory, String.format("image%04d.jpg", i)));
+        }
+        return directory;
+    }
+
+    /**
+     * 删除目录及其中的文件
+     * @param directory 目录
+     */
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,114 @@
+package com.photowatermark.benchmark;
+
+import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.service.ContrastAnalyzer;
+import com.photowatermark.service.ImageProcessor;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 自动位置和颜色的开销基准测试：对不同尺寸的图片，比较固定设置与 --position auto --color auto
+ * 的单张处理耗时（读取、解码、绘制、编码、写出），并单独测量区域亮度统计本身的耗时
+ *
+ * 用法: ContrastBenchmark [每种尺寸的图片数量=4] [轮数=3]
+ */
+public class ContrastBenchmark {
+    private static final double[] MEGAPIXELS = {2, 12, 24};
+    private static final int ANALYZER_ITERATIONS = 200;
+
+    public static void main(String[] args) throws IOException {
+        int imageCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // 避免基准测试写入用户目录下的耗时校准文件
+        File home = Files.createTempDirectory("pw-bench-home-").toFile();
+        System.setProperty("user.home", home.getAbsolutePath());
+
+        System.out.printf("%-8s %16s %16s %16s %12s%n",
+                "尺寸", "固定(毫秒/张)", "自动(毫秒/张)", "统计(毫秒/张)", "统计占比");
+        for (double megapixels : MEGAPIXELS) {
+            File directory = BenchmarkImages.createDirectory(imageCount, megapixels);
+            try {
+                // 预热
+                run(directory, false);
+                run(directory, true);
+
+                // 两种设置逐轮交替运行，避免堆增长和磁盘缓存等顺序因素偏向其中一方
+                long[] fixedElapsed = new long[rounds];
+                long[] autoElapsed = new long[rounds];
+                for (int i = 0; i < rounds; i++) {
+                    fixedElapsed[i] = run(directory, false);
+                    autoElapsed[i] = run(directory, true);
+                }
+                double fixed = medianPerImage(fixedElapsed, imageCount);
+                double auto = medianPerImage(autoElapsed, imageCount);
+                double analyzer = analyzerMillis(BenchmarkImages.create(megapixels, 7));
+                System.out.printf("%-8s %16.1f %16.1f %16.3f %11.3f%%%n", megapixels + "MP",
+                        fixed, auto, analyzer, analyzer / fixed * 100);
+            } finally {
+                BenchmarkImages.deleteDirectory(new File(directory.getAbsolutePath() + "_watermark"));
+                BenchmarkImages.deleteDirectory(directory);
+            }
+        }
+    }
+
+    private static double medianPerImage(long[] elapsed, int imageCount) {
+        Arrays.sort(elapsed);
+        return elapsed[elapsed.length / 2] / 1_000_000.0 / imageCount;
+    }
+
+    private static long run(File directory, boolean auto) {
+        WatermarkConfig config = new WatermarkConfig();
+        config.setImagePath(directory.getAbsolutePath());
+        config.setAutoPosition(auto);
+        config.setAutoColor(auto);
+        config.setExifIndexEnabled(false);
+
+        long start = System.nanoTime();
+        new ImageProcessor().processImages(config);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 测量对九个候选区域做一次亮度统计的平均耗时
+     * @param image 解码后的图片
+     * @return 毫秒数
+     */
+    private static double analyzerMillis(BufferedImage image) {
+        // 与30号粗体日期文本大小相近的候选区域
+        int width = 170;
+        int height = 35;
+        int padding = 20;
+        int[] xs = {padding, (image.getWidth() - width) / 2, image.getWidth() - width - padding};
+        int[] ys = {padding, (image.getHeight() - height) / 2, image.getHeight() - height - padding};
+        Map<String, Rectangle> candidates = new LinkedHashMap<>();
+        for (int row = 0; row < ys.length; row++) {
+            for (int column = 0; column < xs.length; column++) {
+                candidates.put(row + "-" + column, new Rectangle(xs[column], ys[row], width, height));
+            }
+        }
+
+        ContrastAnalyzer analyzer = new ContrastAnalyzer();
+        Color sink = null;
+        for (int i = 0; i < ANALYZER_ITERATIONS; i++) {
+            sink = analyzer.choose(image, candidates, null).getColor();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ANALYZER_ITERATIONS; i++) {
+            sink = analyzer.choose(image, candidates, null).getColor();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == null) {
+            throw new IllegalStateException();
+        }
+        return elapsed / 1_000_000.0 / ANALYZER_ITERATIONS;
+    }
+}
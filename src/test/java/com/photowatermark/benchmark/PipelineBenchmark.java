@@ -0,0 +1,114 @@
+package com.photowatermark.benchmark;
+
+import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.service.ImageProcessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * 并发模式基准测试：在模拟高延迟存储（如NFS/FUSE）上比较顺序处理、
+ * I/O线程数等于处理线程数、使用大I/O线程池以及I/O使用虚拟线程（需要Java 21及以上）几种模式的吞吐量
+ *
+ * 用法: PipelineBenchmark [图片数量=32] [百万像素=2] [每次打开文件的延迟毫秒=50] [轮数=3]
+ */
+public class PipelineBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int imageCount = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        double megapixels = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        // 避免基准测试写入用户目录下的耗时校准文件
+        File home = Files.createTempDirectory("pw-bench-home-").toFile();
+        System.setProperty("user.home", home.getAbsolutePath());
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        File directory = BenchmarkImages.createDirectory(imageCount, megapixels);
+        try {
+            System.out.printf("图片 %d 张 x %.1f 百万像素，模拟延迟 %d 毫秒/次，CPU核数 %d%n",
+                    imageCount, megapixels, latencyMillis, cores);
+
+            // 预热JIT和ImageIO插件
+            run(directory, 1, 0, false, 0);
+
+            report("顺序处理", directory, 1, 0, false, latencyMillis, rounds, imageCount);
+            report(String.format("并发 threads=%d io-threads=%d", cores, cores),
+                    directory, cores, cores, false, latencyMillis, rounds, imageCount);
+            report(String.format("并发 threads=%d io-threads=%d", cores, cores * 16),
+                    directory, cores, cores * 16, false, latencyMillis, rounds, imageCount);
+            if (ImageProcessor.isVirtualThreadSupported()) {
+                report(String.format("并发 threads=%d io-threads=virtual", cores),
+                        directory, cores, 0, true, latencyMillis, rounds, imageCount);
+            } else {
+                System.out.println("当前Java版本不支持虚拟线程，跳过 io-threads=virtual（需要Java 21及以上）");
+            }
+        } finally {
+            BenchmarkImages.deleteDirectory(new File(directory.getAbsolutePath() + "_watermark"));
+            BenchmarkImages.deleteDirectory(directory);
+        }
+    }
+
+    private static void report(String name, File directory, int threads, int ioThreads, boolean virtualIo,
+                               long latencyMillis, int rounds, int imageCount) {
+        long[] elapsed = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            elapsed[i] = run(directory, threads, ioThreads, virtualIo, latencyMillis);
+        }
+        Arrays.sort(elapsed);
+        long median = elapsed[rounds / 2];
+        System.out.printf("%-36s 中位耗时 %6d 毫秒，%6.1f 张/秒%n", name, median, imageCount * 1000.0 / median);
+    }
+
+    private static long run(File directory, int threads, int ioThreads, boolean virtualIo, long latencyMillis) {
+        WatermarkConfig config = new WatermarkConfig();
+        config.setImagePath(directory.getAbsolutePath());
+        config.setThreads(threads);
+        config.setIoThreads(ioThreads);
+        config.setVirtualIoThreads(virtualIo);
+        config.setExifIndexEnabled(false);
+
+        long start = System.nanoTime();
+        new LatencyImageProcessor(latencyMillis).processImages(config);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * 每次打开文件前等待固定时间，模拟网络存储的往返延迟
+     */
+    private static class LatencyImageProcessor extends ImageProcessor {
+        private final long latencyMillis;
+
+        LatencyImageProcessor(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        protected FileChannel openInput(File inputFile) throws IOException {
+            simulateLatency();
+            return super.openInput(inputFile);
+        }
+
+        @Override
+        protected FileChannel openOutput(File outputFile) throws IOException {
+            simulateLatency();
+            return super.openOutput(outputFile);
+        }
+
+        private void simulateLatency() throws IOException {
+            if (latencyMillis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("模拟延迟被中断", e);
+            }
+        }
+    }
+}
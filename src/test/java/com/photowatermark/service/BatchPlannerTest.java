@@ -0,0 +1,77 @@
+package com.photowatermark.service;
+
+import com.photowatermark.model.WatermarkConfig;
+import com.photowatermark.util.CostCalibration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchPlannerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportCountsImagesAndUnreadableFiles() throws IOException {
+        File directory = folder.newFolder("photos");
+        // 数量超过读取线程的排队上限，覆盖分批提交
+        for (int i = 0; i < 12; i++) {
+            ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "jpg",
+                    new File(directory, "img" + i + ".jpg"));
+        }
+        Files.write(new File(directory, "broken.jpg").toPath(), new byte[]{1, 2, 3});
+
+        String report = plan(directory, 1);
+        assertTrue(report, report.contains("图片数量: 13（无法读取尺寸 1，无EXIF日期 13）"));
+        assertTrue(report, report.contains("像素总量: 0.2 百万像素"));
+        assertTrue(report, report.matches("(?s).*jpg\\s+13 张.*"));
+        assertTrue(report, report.matches("(?s).*0-2MP\\s+12 张.*"));
+        // 顺序处理时缓冲区池的直接内存按输入、输出两个缓冲区计入推荐值
+        assertTrue(report, report.contains("按 2 个缓冲区容纳最大的文件计算"));
+    }
+
+    @Test
+    public void estimateDoesNotScaleBeyondCores() throws IOException {
+        File directory = folder.newFolder("photos");
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", new File(directory, "a.png"));
+
+        // 校准为每百万像素1000秒，使估算耗时足够长，能区分线程数的影响
+        new CostCalibration(new File(folder.getRoot(), "calibration.properties")).record(50, 50_000_000, 1);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        String single = estimate(plan(directory, cores));
+        String oversubscribed = estimate(plan(directory, cores * 4));
+        assertEquals(single, oversubscribed);
+    }
+
+    private String plan(File directory, int threads) throws IOException {
+        WatermarkConfig config = new WatermarkConfig();
+        config.setImagePath(directory.getAbsolutePath());
+        config.setThreads(threads);
+        config.setExifIndexEnabled(false);
+
+        CostCalibration calibration = new CostCalibration(new File(folder.getRoot(), "calibration.properties"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BatchPlanner(calibration).plan(config, new PrintStream(output, true, "UTF-8"));
+        return output.toString("UTF-8");
+    }
+
+    private static String estimate(String report) {
+        for (String line : report.split("\\R")) {
+            if (line.startsWith("按当前设置")) {
+                return line.substring(line.indexOf("预计耗时"));
+            }
+        }
+        throw new AssertionError(report);
+    }
+}
@@ -0,0 +1,104 @@
+package com.photowatermark.service;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContrastAnalyzerTest {
+    private final ContrastAnalyzer analyzer = new ContrastAnalyzer();
+
+    @Test
+    public void brightRegionGetsBlackAndDarkRegionGetsWhite() {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        fill(image, new Rectangle(0, 0, 100, 100), new Color(230, 230, 230));
+        fill(image, new Rectangle(100, 0, 100, 100), new Color(20, 20, 20));
+
+        ContrastAnalyzer.Placement bright = analyzer.choose(image, candidates("left", new Rectangle(10, 10, 80, 30)), null);
+        assertEquals(Color.BLACK, bright.getColor());
+
+        ContrastAnalyzer.Placement dark = analyzer.choose(image, candidates("right", new Rectangle(110, 10, 80, 30)), null);
+        assertEquals(Color.WHITE, dark.getColor());
+    }
+
+    @Test
+    public void fixedColorIsKept() {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        fill(image, new Rectangle(0, 0, 100, 100), Color.WHITE);
+
+        ContrastAnalyzer.Placement placement = analyzer.choose(image,
+                candidates("center", new Rectangle(10, 10, 80, 30)), Color.RED);
+        assertEquals(Color.RED, placement.getColor());
+    }
+
+    @Test
+    public void flatRegionBeatsNoisyRegion() {
+        BufferedImage image = new BufferedImage(400, 100, BufferedImage.TYPE_INT_RGB);
+        // 左半部分为平均亮度相近的随机噪声，右半部分为平坦的灰色
+        Random random = new Random(42);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 200; x++) {
+                int value = random.nextInt(101);
+                image.setRGB(x, y, new Color(value, value, value).getRGB());
+            }
+        }
+        fill(image, new Rectangle(200, 0, 200, 100), new Color(50, 50, 50));
+
+        Map<String, Rectangle> candidates = new LinkedHashMap<>();
+        candidates.put("noisy", new Rectangle(10, 10, 180, 80));
+        candidates.put("flat", new Rectangle(210, 10, 180, 80));
+        assertEquals("flat", analyzer.choose(image, candidates, null).getPosition());
+    }
+
+    @Test
+    public void tieGoesToEarlierCandidate() {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        fill(image, new Rectangle(0, 0, 200, 100), new Color(90, 90, 90));
+
+        Map<String, Rectangle> candidates = new LinkedHashMap<>();
+        candidates.put("bottom-right", new Rectangle(110, 60, 80, 30));
+        candidates.put("top-left", new Rectangle(10, 10, 80, 30));
+        assertEquals("bottom-right", analyzer.choose(image, candidates, null).getPosition());
+    }
+
+    @Test
+    public void candidateOutsideImageIsNeverChosen() {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        // 图片内的区域背景杂乱，图片外的区域排在前面
+        Random random = new Random(7);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 100; x++) {
+                int value = random.nextInt(256);
+                image.setRGB(x, y, new Color(value, value, value).getRGB());
+            }
+        }
+
+        Map<String, Rectangle> candidates = new LinkedHashMap<>();
+        candidates.put("outside", new Rectangle(150, 150, 80, 30));
+        candidates.put("inside", new Rectangle(10, 10, 80, 30));
+        assertEquals("inside", analyzer.choose(image, candidates, null).getPosition());
+
+        assertNull(analyzer.choose(image, candidates("outside", new Rectangle(-200, 0, 80, 30)), null));
+    }
+
+    private static Map<String, Rectangle> candidates(String position, Rectangle region) {
+        Map<String, Rectangle> candidates = new LinkedHashMap<>();
+        candidates.put(position, region);
+        return candidates;
+    }
+
+    private static void fill(BufferedImage image, Rectangle region, Color color) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(color);
+        g2d.fill(region);
+        g2d.dispose();
+    }
+}
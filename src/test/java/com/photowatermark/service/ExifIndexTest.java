@@ -0,0 +1,237 @@
+package com.photowatermark.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExifIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void savedEntriesAreFoundAfterReopen() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File withDate = createImage("a.jpg", 100);
+        File withoutDate = createImage("b.jpg", 200);
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(withDate, "2024-05-01");
+        index.put(withoutDate, null);
+        index.save();
+
+        ExifIndex reopened = ExifIndex.open(indexFile);
+        assertEquals("2024-05-01", reopened.lookup(withDate).getDateText());
+        // 没有日期是已确认的结果，与未命中不同
+        ExifIndex.Entry entry = reopened.lookup(withoutDate);
+        assertNotNull(entry);
+        assertNull(entry.getDateText());
+        assertNull(reopened.lookup(createImage("c.jpg", 300)));
+    }
+
+    @Test
+    public void saveMergesNewEntriesWithExistingFile() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File[] images = new File[50];
+        ExifIndex index = ExifIndex.open(indexFile);
+        for (int i = 0; i < images.length; i++) {
+            images[i] = createImage("img" + i + ".jpg", 10 + i);
+            if (i % 2 == 0) {
+                index.put(images[i], String.format("2024-01-%02d", i % 28 + 1));
+            }
+        }
+        index.save();
+
+        // 第二次运行：更新一条已有记录，并加入其余记录
+        ExifIndex second = ExifIndex.open(indexFile);
+        second.put(images[0], "2000-12-31");
+        for (int i = 1; i < images.length; i += 2) {
+            second.put(images[i], String.format("2023-02-%02d", i % 28 + 1));
+        }
+        second.save();
+        // 保存后映射已替换为新文件，同一实例仍可查询
+        assertEquals("2000-12-31", second.lookup(images[0]).getDateText());
+
+        ExifIndex reopened = ExifIndex.open(indexFile);
+        assertEquals("2000-12-31", reopened.lookup(images[0]).getDateText());
+        for (int i = 1; i < images.length; i++) {
+            String expected = i % 2 == 0
+                    ? String.format("2024-01-%02d", i % 28 + 1)
+                    : String.format("2023-02-%02d", i % 28 + 1);
+            assertEquals(expected, reopened.lookup(images[i]).getDateText());
+        }
+    }
+
+    @Test
+    public void entryIsInvalidatedWhenSizeChanges() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+        long lastModified = image.lastModified();
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(image, "2024-05-01");
+        index.save();
+
+        Files.write(image.toPath(), new byte[101]);
+        assertTrue(image.setLastModified(lastModified));
+        assertNull(ExifIndex.open(indexFile).lookup(image));
+    }
+
+    @Test
+    public void entryIsInvalidatedWhenModifiedTimeChanges() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(image, "2024-05-01");
+        index.save();
+
+        assertTrue(image.setLastModified(image.lastModified() - 60_000));
+        assertNull(ExifIndex.open(indexFile).lookup(image));
+    }
+
+    @Test
+    public void truncatedIndexIsIgnoredAndRebuilt() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(image, "2024-05-01");
+        index.save();
+
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        ExifIndex truncated = ExifIndex.open(indexFile);
+        assertNull(truncated.lookup(image));
+
+        truncated.put(image, "2024-05-02");
+        truncated.save();
+        assertEquals("2024-05-02", ExifIndex.open(indexFile).lookup(image).getDateText());
+    }
+
+    @Test
+    public void corruptIndexIsIgnored() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+
+        Files.write(indexFile.toPath(), new byte[]{1, 2, 3});
+        assertNull(ExifIndex.open(indexFile).lookup(image));
+
+        byte[] garbage = new byte[4096];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = (byte) (i * 7);
+        }
+        Files.write(indexFile.toPath(), garbage);
+        assertNull(ExifIndex.open(indexFile).lookup(image));
+    }
+
+    @Test
+    public void corruptPathOffsetDoesNotBreakLookup() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(image, "2024-05-01");
+        index.save();
+
+        // 第一条记录的路径偏移（文件头32字节 + 记录内偏移24）指向文件之外
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.seek(32 + 24);
+            raf.writeLong(Long.MAX_VALUE / 2);
+        }
+        ExifIndex corrupt = ExifIndex.open(indexFile);
+        assertNull(corrupt.lookup(image));
+
+        // 损坏的记录在保存时被丢弃
+        corrupt.put(createImage("b.jpg", 10), null);
+        corrupt.save();
+        assertNull(ExifIndex.open(indexFile).lookup(image));
+    }
+
+    @Test
+    public void pruneRemovesEntriesOfDeletedFiles() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File kept = createImage("a.jpg", 100);
+        File deleted = createImage("b.jpg", 200);
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(kept, "2024-05-01");
+        index.put(deleted, "2024-05-02");
+        index.save();
+
+        long deletedModified = deleted.lastModified();
+        Files.delete(deleted.toPath());
+        ExifIndex second = ExifIndex.open(indexFile);
+        assertNotNull(second.lookup(kept));
+        second.pruneDirectory(kept.getParentFile());
+        second.save();
+
+        ExifIndex reopened = ExifIndex.open(indexFile);
+        assertNotNull(reopened.lookup(kept));
+        // 重新创建相同大小和修改时间的文件也不应命中已删除的记录
+        File recreated = createImage("b.jpg", 200);
+        assertTrue(recreated.setLastModified(deletedModified));
+        assertNull(reopened.lookup(recreated));
+    }
+
+    @Test
+    public void differentSpellingsOfSamePathShareOneEntry() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        File image = createImage("a.jpg", 100);
+        File dotted = new File(folder.getRoot(), "images" + File.separator + "." + File.separator + "a.jpg");
+        File parentRef = new File(folder.getRoot(),
+                "images" + File.separator + ".." + File.separator + "images" + File.separator + "a.jpg");
+
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(dotted, "2024-05-01");
+        index.save();
+
+        ExifIndex reopened = ExifIndex.open(indexFile);
+        assertEquals("2024-05-01", reopened.lookup(image).getDateText());
+        assertEquals("2024-05-01", reopened.lookup(parentRef).getDateText());
+
+        // 通过另一种写法的目录清理时不应删除仍存在的文件
+        reopened.pruneDirectory(new File(folder.getRoot(), "images" + File.separator + "."));
+        reopened.put(parentRef, "2024-05-02");
+        reopened.save();
+        assertEquals("2024-05-02", ExifIndex.open(indexFile).lookup(image).getDateText());
+        assertEquals(32 + 48 + image.getAbsolutePath().getBytes("UTF-8").length, indexFile.length());
+    }
+
+    @Test
+    public void saveLeavesNoTemporaryFiles() throws IOException {
+        File indexFile = new File(folder.getRoot(), "index.bin");
+        ExifIndex index = ExifIndex.open(indexFile);
+        index.put(createImage("a.jpg", 100), "2024-05-01");
+        index.save();
+
+        String[] names = folder.getRoot().list((dir, name) -> name.endsWith(".tmp"));
+        assertEquals(0, names.length);
+    }
+
+    @Test
+    public void disabledIndexCachesNothing() throws IOException {
+        File image = createImage("a.jpg", 100);
+        ExifIndex index = ExifIndex.open((File) null);
+        index.put(image, "2024-05-01");
+        assertNull(index.lookup(image));
+        index.save();
+    }
+
+    private File createImage(String name, int size) throws IOException {
+        File file = new File(folder.getRoot(), "images" + File.separator + name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+}
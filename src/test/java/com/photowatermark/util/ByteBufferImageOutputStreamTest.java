@@ -0,0 +1,81 @@
+package com.photowatermark.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteBufferImageOutputStreamTest {
+
+    @Test
+    public void seekBackAndOverwriteAcrossResize() throws IOException {
+        ByteBufferPool pool = new ByteBufferPool(4);
+        ByteBufferImageOutputStream output = new ByteBufferImageOutputStream(pool, 16);
+
+        byte[] head = new byte[1000];
+        for (int i = 0; i < head.length; i++) {
+            head[i] = (byte) i;
+        }
+        output.write(head);
+
+        // 写入超过初始容量的数据，迫使缓冲区扩容
+        byte[] bulk = new byte[600 * 1024];
+        for (int i = 0; i < bulk.length; i++) {
+            bulk[i] = (byte) (i * 31);
+        }
+        output.write(bulk);
+        int length = head.length + bulk.length;
+        assertEquals(length, output.length());
+
+        // 扩容后回到开头覆盖写入，不应改变总长度
+        output.seek(10);
+        output.writeInt(0xCAFEBABE);
+        assertEquals(length, output.length());
+        assertEquals(14, output.getStreamPosition());
+
+        // 读回覆盖的内容
+        output.seek(10);
+        assertEquals(0xCAFEBABE, output.readInt());
+
+        ByteBuffer data = output.getData();
+        assertEquals(length, data.remaining());
+        assertEquals(9, data.get(9));
+        assertEquals((byte) 0xCA, data.get(10));
+        assertEquals((byte) 0xBE, data.get(13));
+        assertEquals(14, data.get(14));
+        assertEquals(bulk[bulk.length - 1], data.get(length - 1));
+
+        output.close();
+        assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    public void overwriteSpanningEndExtendsLength() throws IOException {
+        ByteBufferPool pool = new ByteBufferPool(2);
+        ByteBufferImageOutputStream output = new ByteBufferImageOutputStream(pool, 16);
+        output.write(new byte[]{1, 2, 3, 4});
+
+        output.seek(2);
+        output.write(new byte[]{7, 8, 9});
+
+        ByteBuffer data = output.getData();
+        assertEquals(5, data.remaining());
+        assertEquals(2, data.get(1));
+        assertEquals(7, data.get(2));
+        assertEquals(9, data.get(4));
+        output.close();
+    }
+
+    @Test
+    public void closeReturnsBufferOnlyOnce() {
+        ByteBufferPool pool = new ByteBufferPool(2);
+        ByteBufferImageOutputStream output = new ByteBufferImageOutputStream(pool, 16);
+        output.close();
+        output.close();
+
+        assertEquals(0, pool.getInUse());
+        assertEquals(1, pool.getFreeCount());
+    }
+}
@@ -0,0 +1,68 @@
+package com.photowatermark.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferPoolTest {
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    public void releasedBufferIsReused() {
+        ByteBufferPool pool = new ByteBufferPool(2);
+        ByteBuffer first = pool.acquire(100);
+        pool.release(first);
+
+        ByteBuffer second = pool.acquire(100);
+        assertSame(first, second);
+        assertEquals(1, pool.getAllocateCount());
+        assertEquals(1, pool.getInUse());
+    }
+
+    @Test
+    public void acquireReturnsDirectBufferLargeEnough() {
+        ByteBufferPool pool = new ByteBufferPool(2);
+        ByteBuffer buffer = pool.acquire(3 * MB + 1);
+        assertTrue(buffer.isDirect());
+        assertTrue(buffer.capacity() >= 3 * MB + 1);
+        assertEquals(buffer.capacity(), buffer.remaining());
+    }
+
+    @Test
+    public void missKeepsSmallerBufferWhilePoolHasRoom() {
+        ByteBufferPool pool = new ByteBufferPool(2);
+        pool.release(pool.acquire(MB));
+
+        ByteBuffer large = pool.acquire(4 * MB);
+        assertEquals(1, pool.getFreeCount());
+
+        pool.release(large);
+        assertEquals(2, pool.getFreeCount());
+        assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    public void missEvictsSmallestBufferWhenPoolIsFull() {
+        ByteBufferPool pool = new ByteBufferPool(1);
+        pool.release(pool.acquire(MB));
+
+        pool.acquire(4 * MB);
+        assertEquals(0, pool.getFreeCount());
+    }
+
+    @Test
+    public void releaseBeyondCapacityDiscardsBuffer() {
+        ByteBufferPool pool = new ByteBufferPool(1);
+        ByteBuffer first = pool.acquire(100);
+        ByteBuffer second = pool.acquire(100);
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(1, pool.getFreeCount());
+        assertEquals(0, pool.getInUse());
+    }
+}
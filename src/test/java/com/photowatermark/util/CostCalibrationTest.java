@@ -0,0 +1,83 @@
+package com.photowatermark.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CostCalibrationTest {
+    private static final double DELTA = 1e-9;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void defaultIsUsedWithoutHistory() {
+        CostCalibration calibration = new CostCalibration(new File(folder.getRoot(), "calibration.properties"));
+        assertFalse(calibration.isCalibrated());
+        assertEquals(CostCalibration.DEFAULT_MILLIS_PER_MEGAPIXEL, calibration.getMillisPerMegapixel(), DELTA);
+    }
+
+    @Test
+    public void runsBelowFiftyMegapixelsAreIgnored() {
+        File file = new File(folder.getRoot(), "calibration.properties");
+        CostCalibration calibration = new CostCalibration(file);
+        calibration.record(49.9, 10_000, 1);
+        assertFalse(file.exists());
+
+        calibration.record(50, 1_000, 1);
+        assertTrue(calibration.isCalibrated());
+        assertEquals(20.0, calibration.getMillisPerMegapixel(), DELTA);
+    }
+
+    @Test
+    public void samplesAreCombinedByMovingAverage() {
+        CostCalibration calibration = new CostCalibration(new File(folder.getRoot(), "calibration.properties"));
+        calibration.record(100, 1_000, 1);
+        assertEquals(10.0, calibration.getMillisPerMegapixel(), DELTA);
+
+        // 新样本权重0.3: 0.7 * 10 + 0.3 * 20
+        calibration.record(100, 2_000, 1);
+        assertEquals(13.0, calibration.getMillisPerMegapixel(), DELTA);
+    }
+
+    @Test
+    public void threadsBeyondCoresDoNotInflateSample() {
+        CostCalibration calibration = new CostCalibration(new File(folder.getRoot(), "calibration.properties"));
+        int cores = Runtime.getRuntime().availableProcessors();
+        calibration.record(100, 1_000, cores * 4);
+        assertEquals(10.0 * cores, calibration.getMillisPerMegapixel(), DELTA);
+    }
+
+    @Test
+    public void invalidValueFallsBackToDefaultAndRestarts() throws IOException {
+        File file = new File(folder.getRoot(), "calibration.properties");
+        Files.write(file.toPath(), "millisPerMegapixel=abc\nsamples=3\n".getBytes(StandardCharsets.ISO_8859_1));
+        CostCalibration calibration = new CostCalibration(file);
+        assertEquals(CostCalibration.DEFAULT_MILLIS_PER_MEGAPIXEL, calibration.getMillisPerMegapixel(), DELTA);
+
+        calibration.record(100, 1_000, 1);
+        assertEquals(10.0, calibration.getMillisPerMegapixel(), DELTA);
+    }
+
+    @Test
+    public void malformedFileIsTreatedAsEmpty() throws IOException {
+        File file = new File(folder.getRoot(), "calibration.properties");
+        // 格式错误的Unicode转义会使Properties.load抛出异常
+        Files.write(file.toPath(), "millisPerMegapixel=\\uZZZZ\n".getBytes(StandardCharsets.ISO_8859_1));
+        CostCalibration calibration = new CostCalibration(file);
+        assertFalse(calibration.isCalibrated());
+        assertEquals(CostCalibration.DEFAULT_MILLIS_PER_MEGAPIXEL, calibration.getMillisPerMegapixel(), DELTA);
+
+        calibration.record(100, 1_000, 1);
+        assertEquals(10.0, calibration.getMillisPerMegapixel(), DELTA);
+    }
+}